@@ -2,8 +2,10 @@ package com.example.learn;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class LearnApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(LearnApplication.class, args);
@@ -0,0 +1,241 @@
+package com.example.learn.caches;
+
+import com.example.learn.config.ProductCacheProperties;
+import com.example.learn.dto.CacheStatsResponse;
+import com.example.learn.dto.PreSerialized;
+import com.example.learn.dto.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of product lookups by id, name and SKU.
+ * Backed by Caffeine (W-TinyLFU admission) with a weight budget and a TTL. Products are held
+ * once, by id; the name and SKU caches only map to an id and are checked against the cached
+ * product on read, so a write only has to evict the id. Writers evict immediately and again
+ * after commit, so a reader that loaded the old row while the transaction was open cannot
+ * leave it cached. Lookups by id load inside Caffeine's compute, which an eviction waits for;
+ * lookups by name, SKU and in bulk query outside it, so every eviction bumps a generation and
+ * such a load withdraws what it cached if the generation moved while it ran. Optionally the
+ * serialised JSON of each product is cached as well, computed inside the same load so it is
+ * evicted at the same points as the product it was written from.
+ */
+@Component
+@Slf4j
+public class ProductCache {
+
+    private static final int KEY_WEIGHT = 64;
+
+    private final Cache<Long, ProductResponse> byId;
+    private final Cache<String, Long> idByName;
+    private final Cache<String, Long> idBySku;
+    private final Cache<Long, PreSerialized<ProductResponse>> jsonById;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCache(ProductCacheProperties properties, ObjectMapper objectMapper) {
+        this.byId = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .weigher((Long key, ProductResponse value) -> weigh(value))
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.idByName = newKeyCache(properties);
+        this.idBySku = newKeyCache(properties);
+        this.jsonById = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .weigher((Long key, PreSerialized<ProductResponse> value) -> 64 + value.jsonWeight())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.objectMapper = objectMapper;
+    }
+
+    private static Cache<String, Long> newKeyCache(ProductCacheProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .weigher((String key, Long value) -> KEY_WEIGHT + 2 * key.length())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Rough heap footprint of a cached response, dominated by its strings
+     */
+    private static int weigh(ProductResponse product) {
+        return 128 + 2 * (length(product.getName()) + length(product.getDescription())
+                + length(product.getCategory()) + length(product.getSku()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Get product by ID, loading it on a miss
+     * @param id Product ID
+     * @param loader Loads the product, returning null if it does not exist
+     * @return Cached or loaded product
+     */
+    public Optional<ProductResponse> getById(Long id, Function<Long, ProductResponse> loader) {
+        return Optional.ofNullable(byId.get(id, loader));
+    }
+
+    /**
+     * Get product by ID together with its serialised JSON, loading and serialising it on a miss
+     * @param id Product ID
+     * @param loader Loads the product, returning null if it does not exist
+     * @return Cached or loaded product with its JSON
+     */
+    public Optional<PreSerialized<ProductResponse>> getSerializedById(Long id, Function<Long, ProductResponse> loader) {
+        return Optional.ofNullable(jsonById.get(id, key -> {
+            ProductResponse product = byId.get(key, loader);
+            return product != null ? PreSerialized.of(product, objectMapper.writeValueAsString(product)) : null;
+        }));
+    }
+
+    /**
+     * Get several products by ID, loading every miss with one call
+     * @param ids Product IDs
+     * @param loader Loads the missing products; ids that do not exist are left out
+     * @return Cached or loaded products by id, without the ids that do not exist
+     */
+    public Map<Long, ProductResponse> getAllById(Collection<Long> ids,
+                                                 Function<Set<? extends Long>, Map<Long, ProductResponse>> loader) {
+        Map<Long, ProductResponse> cached = byId.getAllPresent(ids);
+        Set<Long> missing = new HashSet<>(ids);
+        missing.removeAll(cached.keySet());
+        if (missing.isEmpty()) {
+            return cached;
+        }
+        long started = generation.get();
+        Map<Long, ProductResponse> loaded = loader.apply(missing);
+        loaded.forEach((id, product) -> putLoaded(id, product, started));
+        Map<Long, ProductResponse> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            ProductResponse product = cached.containsKey(id) ? cached.get(id) : loaded.get(id);
+            if (product != null) {
+                result.put(id, product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get product by name, loading it on a miss
+     * @param name Product name
+     * @param loader Loads the product, returning null if it does not exist
+     * @return Cached or loaded product
+     */
+    public Optional<ProductResponse> getByName(String name, Function<String, ProductResponse> loader) {
+        return getByKey(idByName, name, ProductResponse::getName, loader);
+    }
+
+    /**
+     * Get product by SKU, loading it on a miss
+     * @param sku Product SKU
+     * @param loader Loads the product, returning null if it does not exist
+     * @return Cached or loaded product
+     */
+    public Optional<ProductResponse> getBySku(String sku, Function<String, ProductResponse> loader) {
+        return getByKey(idBySku, sku, ProductResponse::getSku, loader);
+    }
+
+    private Optional<ProductResponse> getByKey(Cache<String, Long> keyCache, String key,
+                                               Function<ProductResponse, String> keyOf,
+                                               Function<String, ProductResponse> loader) {
+        Long id = keyCache.getIfPresent(key);
+        if (id != null) {
+            ProductResponse cached = byId.getIfPresent(id);
+            // The product may have been renamed or evicted since the key was cached
+            if (cached != null && key.equals(keyOf.apply(cached))) {
+                return Optional.of(cached);
+            }
+            keyCache.invalidate(key);
+        }
+        long started = generation.get();
+        ProductResponse loaded = loader.apply(key);
+        if (loaded != null) {
+            keyCache.put(key, loaded.getId());
+            putLoaded(loaded.getId(), loaded, started);
+        }
+        return Optional.ofNullable(loaded);
+    }
+
+    /**
+     * Cache a product queried outside the cache's compute; if any eviction ran since the query
+     * started, the row may predate it, so the entry is withdrawn unless something replaced it
+     */
+    private void putLoaded(Long id, ProductResponse product, long started) {
+        byId.put(id, product);
+        if (generation.get() != started) {
+            byId.asMap().remove(id, product);
+        }
+    }
+
+    /**
+     * Evict a product, now and after the current transaction commits
+     * @param id Product ID
+     */
+    public void evict(Long id) {
+        invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(id);
+                }
+            });
+        }
+        log.debug("Evicted product cache entry for id: {}", id);
+    }
+
+    /**
+     * Bump the generation before invalidating, so a load that put after the invalidation sees the bump
+     */
+    private void invalidate(Long id) {
+        generation.incrementAndGet();
+        byId.invalidate(id);
+        jsonById.invalidate(id);
+    }
+
+    /**
+     * Hit, miss and eviction counters per lookup key
+     * @return Map of key name to statistics
+     */
+    public Map<String, CacheStatsResponse> stats() {
+        Map<String, CacheStatsResponse> stats = new LinkedHashMap<>();
+        stats.put("id", toResponse(byId));
+        stats.put("name", toResponse(idByName));
+        stats.put("sku", toResponse(idBySku));
+        stats.put("json", toResponse(jsonById));
+        return stats;
+    }
+
+    private static CacheStatsResponse toResponse(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                cache.estimatedSize()
+        );
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for multi-id lookups and the coalescing of concurrent single-id lookups
+ */
+@Data
+@ConfigurationProperties(prefix = "app.lookup")
+public class BatchLookupProperties {
+
+    /**
+     * Merge single-id lookups that arrive within the window into one IN query
+     */
+    private boolean coalesce = true;
+
+    /**
+     * How long the first lookup of a batch waits for others to join it
+     */
+    private Duration coalesceWindow = Duration.ofMillis(1);
+
+    /**
+     * Most ids per query, both for a coalesced batch and for a multi-get request
+     */
+    private int maxBatchSize = 100;
+}
@@ -0,0 +1,37 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the Bloom filters in front of the email, product name and SKU uniqueness checks
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bloom")
+public class BloomFilterProperties {
+
+    /**
+     * Answer most negative uniqueness checks from memory; when off every check queries the database
+     */
+    private boolean enabled = true;
+
+    /**
+     * Keys each filter is sized for at least; a filter is sized for twice its current key count if that is larger
+     */
+    private int expectedInsertions = 100_000;
+
+    /**
+     * Target false positive rate, i.e. the share of new keys that still need a database check
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Time between rebuilds, which is how deleted and renamed keys drop out of the filters
+     */
+    private long rebuildIntervalMs = 600_000;
+
+    /**
+     * Keys loaded per query while building a filter
+     */
+    private int buildBatchSize = 1000;
+}
@@ -0,0 +1,26 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Settings for product facet counts
+ */
+@Data
+@ConfigurationProperties(prefix = "app.facets.products")
+public class FacetProperties {
+
+    /**
+     * Ascending upper bounds of the price buckets; prices at or above the last bound form the final bucket
+     */
+    private List<BigDecimal> priceBuckets = List.of(
+            new BigDecimal("10"), new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("500"));
+
+    /**
+     * Serve facets from counters kept up to date by product writes instead of querying per request
+     */
+    private boolean inMemory = true;
+}
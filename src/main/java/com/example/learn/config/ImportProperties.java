@@ -0,0 +1,22 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for bulk import endpoints
+ */
+@Data
+@ConfigurationProperties(prefix = "app.import")
+public class ImportProperties {
+
+    /**
+     * Rows written per JDBC batch and per transaction
+     */
+    private int batchSize = 500;
+
+    /**
+     * Maximum number of row errors listed in the import report; further errors are only counted
+     */
+    private int maxReportedErrors = 1000;
+}
@@ -0,0 +1,45 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for the in-memory inventory mode used for flash-sale products
+ */
+@Data
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryProperties {
+
+    /**
+     * Serve stock of the hot products from memory instead of the products table
+     */
+    private boolean enabled = false;
+
+    /**
+     * Ids of the products whose stock is held in memory
+     */
+    private List<Long> hotProductIds = new ArrayList<>();
+
+    /**
+     * Number of independent counters each hot product's stock is split across
+     */
+    private int stripes = 8;
+
+    /**
+     * Delay in milliseconds between write-behind flushes of net deltas to the products table
+     */
+    private long flushIntervalMs = 1000;
+
+    /**
+     * Append-only journal of acknowledged stock changes, replayed on startup
+     */
+    private String journalPath = "data/inventory.journal";
+
+    /**
+     * Force the journal to disk before acknowledging a change
+     */
+    private boolean journalSync = true;
+}
@@ -0,0 +1,22 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Page size limits for cursor-paginated list endpoints
+ */
+@Data
+@ConfigurationProperties(prefix = "app.pagination")
+public class PaginationProperties {
+
+    /**
+     * Page size used when the client does not request one
+     */
+    private int defaultSize = 20;
+
+    /**
+     * Upper bound for the requested page size
+     */
+    private int maxSize = 200;
+}
@@ -0,0 +1,29 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Reporting of virtual threads pinned to their carrier while blocked
+ */
+@Data
+@ConfigurationProperties(prefix = "app.threads.pinning-diagnostics")
+public class PinningDiagnosticsProperties {
+
+    /**
+     * Stream jdk.VirtualThreadPinned events from JFR and log where they happened
+     */
+    private boolean enabled = false;
+
+    /**
+     * Pinned intervals shorter than this are not reported
+     */
+    private Duration threshold = Duration.ofMillis(20);
+
+    /**
+     * Number of stack frames logged per pinned interval
+     */
+    private int stackDepth = 12;
+}
@@ -0,0 +1,30 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the in-process product lookup cache
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.products")
+public class ProductCacheProperties {
+
+    /**
+     * Approximate heap budget in bytes for cached products, and separately for each of the name
+     * and SKU key maps and the serialised JSON
+     */
+    private long maximumWeight = 8L * 1024 * 1024;
+
+    /**
+     * Time after which a cached product is reloaded from the database
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * Also cache the serialised JSON of each product, so a read by id is a byte copy
+     */
+    private boolean preSerialize = true;
+}
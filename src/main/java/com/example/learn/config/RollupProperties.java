@@ -0,0 +1,22 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the address counts by country, state and city
+ */
+@Data
+@ConfigurationProperties(prefix = "app.rollups.addresses")
+public class RollupProperties {
+
+    /**
+     * Serve the rollup from counters kept up to date by address writes instead of querying per request
+     */
+    private boolean inMemory = true;
+
+    /**
+     * Time between reconciliations of the counters against a grouped count in the database
+     */
+    private long reconcileIntervalMs = 300_000;
+}
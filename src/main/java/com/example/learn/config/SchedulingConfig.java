@@ -0,0 +1,12 @@
+package com.example.learn.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enable @Scheduled background jobs (write-behind flushes, periodic rebuilds)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
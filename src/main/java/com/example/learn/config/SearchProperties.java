@@ -0,0 +1,27 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the in-memory product name index
+ */
+@Data
+@ConfigurationProperties(prefix = "app.search.products")
+public class SearchProperties {
+
+    /**
+     * Also index product descriptions; matches there rank below name matches
+     */
+    private boolean indexDescription = false;
+
+    /**
+     * Rows loaded per query while building the index at startup
+     */
+    private int buildBatchSize = 500;
+
+    /**
+     * Time between rebuilds that correct writes applied out of commit order
+     */
+    private long reconcileIntervalMs = 300_000;
+}
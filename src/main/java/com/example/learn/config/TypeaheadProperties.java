@@ -0,0 +1,44 @@
+package com.example.learn.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory user name typeahead index
+ */
+@Data
+@ConfigurationProperties(prefix = "app.search.users")
+public class TypeaheadProperties {
+
+    /**
+     * Suggestions returned when the request gives no limit
+     */
+    private int defaultLimit = 10;
+
+    /**
+     * Most suggestions a request may ask for
+     */
+    private int maxLimit = 50;
+
+    /**
+     * Time after which a lookup stops scanning and returns what it has found, marked truncated
+     */
+    private Duration latencyBudget = Duration.ofMillis(20);
+
+    /**
+     * Rows loaded per query while building the index at startup
+     */
+    private int buildBatchSize = 1000;
+
+    /**
+     * Time between merges of queued writes into the snapshot lookups read
+     */
+    private long mergeIntervalMs = 100;
+
+    /**
+     * Time between rebuilds that correct writes applied out of commit order
+     */
+    private long reconcileIntervalMs = 300_000;
+}
@@ -2,8 +2,14 @@ package com.example.learn.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
 @Configuration
 public class WebConfig {
@@ -25,5 +31,23 @@ public class WebConfig {
             }
         };
     }
-}
 
+    /**
+     * Serve application/cbor and application/x-jackson-smile next to JSON, chosen by the Accept header.
+     * CBOR uses the mapper Boot configures from spring.jackson.*; Smile has no Boot mapper, so it
+     * gets the modules registered on the JSON mapper.
+     */
+    @Bean
+    public WebMvcConfigurer binaryFormatsConfigurer(CBORMapper cborMapper, JsonMapper jsonMapper) {
+        SmileMapper smileMapper = SmileMapper.builder()
+                .addModules(jsonMapper.registeredModules())
+                .build();
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+                builder.withCborConverter(new JacksonCborHttpMessageConverter(cborMapper))
+                        .withSmileConverter(new JacksonSmileHttpMessageConverter(smileMapper));
+            }
+        };
+    }
+}
@@ -2,7 +2,12 @@ package com.example.learn.controllers;
 
 import com.example.learn.dto.AddressRequest;
 import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.AddressRollupResponse;
 import com.example.learn.dto.ApiResponse;
+import com.example.learn.dto.BulkDeleteResponse;
+import com.example.learn.dto.BulkImportResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.services.AddressImportService;
 import com.example.learn.services.AddressService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -10,7 +15,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/addresses")
@@ -18,16 +25,39 @@ import java.util.List;
 public class AddressController {
 
     private final AddressService addressService;
+    private final AddressImportService addressImportService;
 
     /**
      * Get all addresses
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of all addresses
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAllAddresses() {
-        List<AddressResponse> addresses = addressService.findAll();
+    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAllAddresses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<AddressResponse> addresses = addressService.findAll(cursor, size);
+        return ConditionalResponses.ok(addresses, ConditionalResponses::fingerprint).body(
+                ApiResponse.page("Addresses retrieved successfully", addresses)
+        );
+    }
+
+    /**
+     * Get all addresses, reading and returning only the requested fields
+     * @param fields Comma-separated field names, e.g. city,country; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of addresses with the requested fields
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAllAddressFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> addresses = addressService.findAllFields(fields, cursor, size);
         return ResponseEntity.ok(
-                ApiResponse.success("Addresses retrieved successfully", addresses)
+                ApiResponse.page("Addresses retrieved successfully", addresses)
         );
     }
 
@@ -39,7 +69,7 @@ public class AddressController {
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<AddressResponse>> getAddressById(@PathVariable Long id) {
         AddressResponse address = addressService.findById(id);
-        return ResponseEntity.ok(
+        return ConditionalResponses.ok(address).body(
                 ApiResponse.success("Address retrieved successfully", address)
         );
     }
@@ -47,13 +77,38 @@ public class AddressController {
     /**
      * Get all addresses for a specific user
      * @param userId User ID
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of addresses for the user
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByUserId(@PathVariable Long userId) {
-        List<AddressResponse> addresses = addressService.findByUserId(userId);
+    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<AddressResponse> addresses = addressService.findByUserId(userId, cursor, size);
+        return ConditionalResponses.ok(addresses, ConditionalResponses::fingerprint).body(
+                ApiResponse.page("User addresses retrieved successfully", addresses)
+        );
+    }
+
+    /**
+     * Get all addresses for a specific user, reading and returning only the requested fields
+     * @param userId User ID
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of addresses for the user with the requested fields
+     */
+    @GetMapping(value = "/user/{userId}", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAddressFieldsByUserId(
+            @PathVariable Long userId,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> addresses = addressService.findFieldsByUserId(fields, userId, cursor, size);
         return ResponseEntity.ok(
-                ApiResponse.success("User addresses retrieved successfully", addresses)
+                ApiResponse.page("User addresses retrieved successfully", addresses)
         );
     }
 
@@ -61,15 +116,42 @@ public class AddressController {
      * Get addresses by user ID and address type
      * @param userId User ID
      * @param type Address type
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of addresses matching the criteria
      */
     @GetMapping("/user/{userId}/type/{type}")
     public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByUserIdAndType(
             @PathVariable Long userId,
-            @PathVariable String type) {
-        List<AddressResponse> addresses = addressService.findByUserIdAndAddressType(userId, type);
+            @PathVariable String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<AddressResponse> addresses = addressService.findByUserIdAndAddressType(userId, type, cursor, size);
+        return ConditionalResponses.ok(addresses, ConditionalResponses::fingerprint).body(
+                ApiResponse.page("Addresses retrieved successfully", addresses)
+        );
+    }
+
+    /**
+     * Get addresses by user ID and address type, reading and returning only the requested fields
+     * @param userId User ID
+     * @param type Address type
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of addresses matching the criteria with the requested fields
+     */
+    @GetMapping(value = "/user/{userId}/type/{type}", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAddressFieldsByUserIdAndType(
+            @PathVariable Long userId,
+            @PathVariable String type,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> addresses = addressService.findFieldsByUserIdAndAddressType(
+                fields, userId, type, cursor, size);
         return ResponseEntity.ok(
-                ApiResponse.success("Addresses retrieved successfully", addresses)
+                ApiResponse.page("Addresses retrieved successfully", addresses)
         );
     }
 
@@ -81,7 +163,7 @@ public class AddressController {
     @GetMapping("/user/{userId}/default")
     public ResponseEntity<ApiResponse<AddressResponse>> getDefaultAddressByUserId(@PathVariable Long userId) {
         AddressResponse address = addressService.findDefaultAddressByUserId(userId);
-        return ResponseEntity.ok(
+        return ConditionalResponses.ok(address).body(
                 ApiResponse.success("Default address retrieved successfully", address)
         );
     }
@@ -89,39 +171,114 @@ public class AddressController {
     /**
      * Get addresses by city
      * @param city City name
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of addresses in the city
      */
     @GetMapping("/city/{city}")
-    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByCity(@PathVariable String city) {
-        List<AddressResponse> addresses = addressService.findByCity(city);
+    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByCity(
+            @PathVariable String city,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<AddressResponse> addresses = addressService.findByCity(city, cursor, size);
+        return ConditionalResponses.ok(addresses, ConditionalResponses::fingerprint).body(
+                ApiResponse.page("Addresses retrieved successfully", addresses)
+        );
+    }
+
+    /**
+     * Get addresses by city, reading and returning only the requested fields
+     * @param city City name
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of addresses in the city with the requested fields
+     */
+    @GetMapping(value = "/city/{city}", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAddressFieldsByCity(
+            @PathVariable String city,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> addresses = addressService.findFieldsByCity(fields, city, cursor, size);
         return ResponseEntity.ok(
-                ApiResponse.success("Addresses retrieved successfully", addresses)
+                ApiResponse.page("Addresses retrieved successfully", addresses)
         );
     }
 
     /**
      * Get addresses by state
      * @param state State name
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of addresses in the state
      */
     @GetMapping("/state/{state}")
-    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByState(@PathVariable String state) {
-        List<AddressResponse> addresses = addressService.findByState(state);
+    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByState(
+            @PathVariable String state,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<AddressResponse> addresses = addressService.findByState(state, cursor, size);
+        return ConditionalResponses.ok(addresses, ConditionalResponses::fingerprint).body(
+                ApiResponse.page("Addresses retrieved successfully", addresses)
+        );
+    }
+
+    /**
+     * Get addresses by state, reading and returning only the requested fields
+     * @param state State name
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of addresses in the state with the requested fields
+     */
+    @GetMapping(value = "/state/{state}", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAddressFieldsByState(
+            @PathVariable String state,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> addresses = addressService.findFieldsByState(fields, state, cursor, size);
         return ResponseEntity.ok(
-                ApiResponse.success("Addresses retrieved successfully", addresses)
+                ApiResponse.page("Addresses retrieved successfully", addresses)
         );
     }
 
     /**
      * Get addresses by country
      * @param country Country name
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of addresses in the country
      */
     @GetMapping("/country/{country}")
-    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByCountry(@PathVariable String country) {
-        List<AddressResponse> addresses = addressService.findByCountry(country);
+    public ResponseEntity<ApiResponse<List<AddressResponse>>> getAddressesByCountry(
+            @PathVariable String country,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<AddressResponse> addresses = addressService.findByCountry(country, cursor, size);
+        return ConditionalResponses.ok(addresses, ConditionalResponses::fingerprint).body(
+                ApiResponse.page("Addresses retrieved successfully", addresses)
+        );
+    }
+
+    /**
+     * Get addresses by country, reading and returning only the requested fields
+     * @param country Country name
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of addresses in the country with the requested fields
+     */
+    @GetMapping(value = "/country/{country}", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAddressFieldsByCountry(
+            @PathVariable String country,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> addresses = addressService.findFieldsByCountry(fields, country, cursor, size);
         return ResponseEntity.ok(
-                ApiResponse.success("Addresses retrieved successfully", addresses)
+                ApiResponse.page("Addresses retrieved successfully", addresses)
         );
     }
 
@@ -152,6 +309,19 @@ public class AddressController {
         );
     }
 
+    /**
+     * Bulk import addresses from newline-delimited JSON
+     * @param body NDJSON request body, one address per line
+     * @return Import report with per-line errors
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ApiResponse<BulkImportResponse>> importAddresses(InputStream body) {
+        BulkImportResponse report = addressImportService.importAddresses(body);
+        return ResponseEntity.ok(
+                ApiResponse.success("Address import completed", report)
+        );
+    }
+
     /**
      * Update existing address
      * @param id Address ID
@@ -200,6 +370,22 @@ public class AddressController {
         );
     }
 
+    /**
+     * Get address counts by country, state and city
+     * @param country Country to narrow to
+     * @param state State within the country to narrow to
+     * @return Address counts of the region and its sub-regions
+     */
+    @GetMapping("/rollup")
+    public ResponseEntity<ApiResponse<AddressRollupResponse>> getAddressRollup(
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) String state) {
+        AddressRollupResponse rollup = addressService.rollup(country, state);
+        return ResponseEntity.ok(
+                ApiResponse.success("Address rollup retrieved successfully", rollup)
+        );
+    }
+
     /**
      * Delete address by ID
      * @param id Address ID
@@ -225,5 +411,18 @@ public class AddressController {
                 ApiResponse.success("All user addresses deleted successfully", null)
         );
     }
-}
 
+    /**
+     * Delete all addresses for several users
+     * @param userIds User IDs
+     * @return Number of addresses deleted
+     */
+    @DeleteMapping("/user")
+    public ResponseEntity<ApiResponse<BulkDeleteResponse>> deleteAllAddressesByUserIds(
+            @RequestParam(required = false) List<Long> userIds) {
+        BulkDeleteResponse result = addressService.deleteAllAddressesByUserIds(userIds);
+        return ResponseEntity.ok(
+                ApiResponse.success("User addresses deleted successfully", result)
+        );
+    }
+}
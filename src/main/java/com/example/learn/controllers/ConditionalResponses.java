@@ -0,0 +1,122 @@
+package com.example.learn.controllers;
+
+import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.dto.UserResponse;
+import com.example.learn.util.Hashing;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Validators for conditional GETs, computed from ids and update timestamps rather than the
+ * serialised body. Spring answers a matching If-None-Match or If-Modified-Since with 304 before
+ * the body is written, so an unchanged resource costs the lookup and nothing else.
+ * Single resources carry a weak ETag and, unless part of them changes without moving updatedAt,
+ * Last-Modified. Lists carry only a weak ETag: a row leaving the list does not move its newest
+ * updatedAt, so If-Modified-Since alone would miss it.
+ * The tags are shared by the JSON and binary representations, so responses vary by Accept.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Hot products' stock moves in memory without touching updatedAt, so they carry no
+     * Last-Modified; their ETag still covers the live quantity
+     */
+    static ResponseEntity.BodyBuilder ok(ProductResponse product, boolean liveStock) {
+        return ok(fingerprint(product), liveStock ? null : product.getUpdatedAt());
+    }
+
+    static ResponseEntity.BodyBuilder ok(UserResponse user) {
+        return ok(fingerprint(user), user.getUpdatedAt());
+    }
+
+    static ResponseEntity.BodyBuilder ok(AddressResponse address) {
+        return ok(fingerprint(address), address.getUpdatedAt());
+    }
+
+    /**
+     * 200 builder tagged with a weak ETag over one page
+     * @param page Page items and the cursor of the next page
+     * @param fingerprint Version of one item, covering its id
+     * @return Response builder with the ETag set
+     */
+    static <T> ResponseEntity.BodyBuilder ok(CursorPage<T> page, ToLongFunction<T> fingerprint) {
+        long hash = mix(tag(page.getItems(), fingerprint), Objects.hashCode(page.getNextCursor()));
+        return ResponseEntity.ok().eTag(etag(hash)).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * 200 builder tagged with a weak ETag over a list
+     * @param items Items in response order
+     * @param fingerprint Version of one item, covering its id
+     * @return Response builder with the ETag set
+     */
+    static <T> ResponseEntity.BodyBuilder ok(Collection<T> items, ToLongFunction<T> fingerprint) {
+        return ResponseEntity.ok().eTag(etag(tag(items, fingerprint))).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    static long fingerprint(ProductResponse product) {
+        // Hot products report live stock that is written back after the fact
+        long hash = mix(mix(product.getId(), nanos(product.getUpdatedAt())), Objects.hashCode(product.getQuantity()));
+        return finish(hash);
+    }
+
+    static long fingerprint(UserResponse user) {
+        return finish(mix(user.getId(), nanos(user.getUpdatedAt())));
+    }
+
+    static long fingerprint(AddressResponse address) {
+        // The owner's name is denormalised into the response but not into the address row
+        long hash = mix(mix(address.getId(), nanos(address.getUpdatedAt())), Objects.hashCode(address.getUserName()));
+        return finish(hash);
+    }
+
+    private static ResponseEntity.BodyBuilder ok(long fingerprint, LocalDateTime updatedAt) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(etag(fingerprint)).varyBy(HttpHeaders.ACCEPT);
+        if (updatedAt != null) {
+            builder.lastModified(updatedAt.atZone(ZoneId.systemDefault()));
+        }
+        return builder;
+    }
+
+    private static <T> long tag(Collection<T> items, ToLongFunction<T> fingerprint) {
+        long hash = items.size();
+        for (T item : items) {
+            hash = mix(hash, fingerprint.applyAsLong(item));
+        }
+        return finish(hash);
+    }
+
+    private static String etag(long hash) {
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    private static long nanos(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return 0L;
+        }
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+    }
+
+    /**
+     * Spread nearby inputs over the whole tag
+     */
+    private static long finish(long hash) {
+        return Hashing.fmix64(hash);
+    }
+}
@@ -1,17 +1,28 @@
 package com.example.learn.controllers;
 
 import com.example.learn.dto.ApiResponse;
+import com.example.learn.dto.BulkImportResponse;
+import com.example.learn.dto.CacheStatsResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.dto.PreSerialized;
+import com.example.learn.dto.ProductFacetsResponse;
 import com.example.learn.dto.ProductRequest;
 import com.example.learn.dto.ProductResponse;
+import com.example.learn.dto.StockAdjustmentResponse;
+import com.example.learn.services.ProductImportService;
 import com.example.learn.services.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -19,15 +30,64 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
     /**
      * Get all products
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of all products
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getAllProducts() {
-        List<ProductResponse> products = productService.findAll();
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductResponse> products = productService.findAll(cursor, size);
+        return ConditionalResponses.ok(products, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Products retrieved successfully", products)
+        );
+    }
+
+    /**
+     * Get all products, reading and returning only the requested fields
+     * @param fields Comma-separated field names, e.g. name,price,quantity; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of products with the requested fields
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAllProductFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> products = productService.findAllFields(fields, cursor, size);
         return ResponseEntity.ok(
+            ApiResponse.page("Products retrieved successfully", products)
+        );
+    }
+
+    /**
+     * Export all products as newline-delimited JSON
+     * @return Streamed NDJSON body, one product per line
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = productService::exportAll;
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
+    /**
+     * Get several products by ID
+     * @param ids Product IDs
+     * @return Product details by id, without the ids that do not exist
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<ApiResponse<Map<Long, ProductResponse>>> getProductsByIds(
+            @RequestParam(required = false) List<Long> ids) {
+        Map<Long, ProductResponse> products = productService.findByIds(ids);
+        return ConditionalResponses.ok(products.values(), ConditionalResponses::fingerprint).body(
             ApiResponse.success("Products retrieved successfully", products)
         );
     }
@@ -38,9 +98,9 @@ public class ProductController {
      * @return Product details
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductResponse>> getProductById(@PathVariable Long id) {
-        ProductResponse product = productService.findById(id);
-        return ResponseEntity.ok(
+    public ResponseEntity<ApiResponse<PreSerialized<ProductResponse>>> getProductById(@PathVariable Long id) {
+        PreSerialized<ProductResponse> product = productService.findSerializedById(id);
+        return ConditionalResponses.ok(product.getValue(), productService.hasLiveStock(id)).body(
             ApiResponse.success("Product retrieved successfully", product)
         );
     }
@@ -53,7 +113,7 @@ public class ProductController {
     @GetMapping("/name/{name}")
     public ResponseEntity<ApiResponse<ProductResponse>> getProductByName(@PathVariable String name) {
         ProductResponse product = productService.findByName(name);
-        return ResponseEntity.ok(
+        return ConditionalResponses.ok(product, productService.hasLiveStock(product.getId())).body(
             ApiResponse.success("Product retrieved successfully", product)
         );
     }
@@ -66,7 +126,7 @@ public class ProductController {
     @GetMapping("/sku/{sku}")
     public ResponseEntity<ApiResponse<ProductResponse>> getProductBySku(@PathVariable String sku) {
         ProductResponse product = productService.findBySku(sku);
-        return ResponseEntity.ok(
+        return ConditionalResponses.ok(product, productService.hasLiveStock(product.getId())).body(
             ApiResponse.success("Product retrieved successfully", product)
         );
     }
@@ -74,49 +134,140 @@ public class ProductController {
     /**
      * Get products by category
      * @param category Product category
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of products in category
      */
     @GetMapping("/category/{category}")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getProductsByCategory(@PathVariable String category) {
-        List<ProductResponse> products = productService.findByCategory(category);
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductResponse> products = productService.findByCategory(category, cursor, size);
+        return ConditionalResponses.ok(products, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Products retrieved successfully", products)
+        );
+    }
+
+    /**
+     * Get products by category, reading and returning only the requested fields
+     * @param category Product category
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of products in category with the requested fields
+     */
+    @GetMapping(value = "/category/{category}", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getProductFieldsByCategory(
+            @PathVariable String category,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> products = productService.findFieldsByCategory(fields, category, cursor, size);
         return ResponseEntity.ok(
-            ApiResponse.success("Products retrieved successfully", products)
+            ApiResponse.page("Products retrieved successfully", products)
         );
     }
 
     /**
      * Get all active products
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of active products
      */
     @GetMapping("/active")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getActiveProducts() {
-        List<ProductResponse> products = productService.findActiveProducts();
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getActiveProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductResponse> products = productService.findActiveProducts(cursor, size);
+        return ConditionalResponses.ok(products, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Active products retrieved successfully", products)
+        );
+    }
+
+    /**
+     * Get all active products, reading and returning only the requested fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of active products with the requested fields
+     */
+    @GetMapping(value = "/active", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getActiveProductFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> products = productService.findActiveProductFields(fields, cursor, size);
         return ResponseEntity.ok(
-            ApiResponse.success("Active products retrieved successfully", products)
+            ApiResponse.page("Active products retrieved successfully", products)
         );
     }
 
     /**
      * Get in-stock products
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of in-stock products
      */
     @GetMapping("/in-stock")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getInStockProducts() {
-        List<ProductResponse> products = productService.findInStockProducts();
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getInStockProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductResponse> products = productService.findInStockProducts(cursor, size);
+        return ConditionalResponses.ok(products, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("In-stock products retrieved successfully", products)
+        );
+    }
+
+    /**
+     * Get in-stock products, reading and returning only the requested fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of in-stock products with the requested fields
+     */
+    @GetMapping(value = "/in-stock", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getInStockProductFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> products = productService.findInStockProductFields(fields, cursor, size);
         return ResponseEntity.ok(
-            ApiResponse.success("In-stock products retrieved successfully", products)
+            ApiResponse.page("In-stock products retrieved successfully", products)
         );
     }
 
     /**
      * Get out-of-stock products
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of out-of-stock products
      */
     @GetMapping("/out-of-stock")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getOutOfStockProducts() {
-        List<ProductResponse> products = productService.findOutOfStockProducts();
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getOutOfStockProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductResponse> products = productService.findOutOfStockProducts(cursor, size);
+        return ConditionalResponses.ok(products, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Out-of-stock products retrieved successfully", products)
+        );
+    }
+
+    /**
+     * Get out-of-stock products, reading and returning only the requested fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of out-of-stock products with the requested fields
+     */
+    @GetMapping(value = "/out-of-stock", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getOutOfStockProductFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> products = productService.findOutOfStockProductFields(fields, cursor, size);
         return ResponseEntity.ok(
-            ApiResponse.success("Out-of-stock products retrieved successfully", products)
+            ApiResponse.page("Out-of-stock products retrieved successfully", products)
         );
     }
 
@@ -124,27 +275,78 @@ public class ProductController {
      * Get products within price range
      * @param minPrice Minimum price
      * @param maxPrice Maximum price
+     * @param sort id (default), price or price_desc
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of products
      */
     @GetMapping("/price-range")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
-        List<ProductResponse> products = productService.findByPriceRange(minPrice, maxPrice);
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<ProductResponse> products = productService.findByPriceRange(minPrice, maxPrice, sort, cursor, size);
+        return ConditionalResponses.ok(products, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Products retrieved successfully", products)
+        );
+    }
+
+    /**
+     * Get products within price range, reading and returning only the requested fields
+     * @param fields Comma-separated field names; id is always included
+     * @param minPrice Minimum price
+     * @param maxPrice Maximum price
+     * @param sort id (default), price or price_desc
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of products with the requested fields
+     */
+    @GetMapping(value = "/price-range", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getProductFieldsByPriceRange(
+            @RequestParam String fields,
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> products = productService.findFieldsByPriceRange(
+            fields, minPrice, maxPrice, sort, cursor, size);
         return ResponseEntity.ok(
-            ApiResponse.success("Products retrieved successfully", products)
+            ApiResponse.page("Products retrieved successfully", products)
         );
     }
 
     /**
      * Search products by name
      * @param keyword Search keyword
-     * @return List of matching products
+     * @param limit Maximum number of results
+     * @return List of matching products, best match first
      */
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> searchProducts(
-            @RequestParam(name = "keyword") String keyword) {
-        List<ProductResponse> products = productService.searchByName(keyword);
+            @RequestParam(name = "keyword") String keyword,
+            @RequestParam(required = false) Integer limit) {
+        List<ProductResponse> products = productService.searchByName(keyword, limit);
+        return ConditionalResponses.ok(products, ConditionalResponses::fingerprint).body(
+            ApiResponse.success("Search completed successfully", products)
+        );
+    }
+
+    /**
+     * Search products by name, reading and returning only the requested fields
+     * @param fields Comma-separated field names; id is always included
+     * @param keyword Search keyword
+     * @param limit Maximum number of results
+     * @return List of matching products with the requested fields, best match first
+     */
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> searchProductFields(
+            @RequestParam String fields,
+            @RequestParam(name = "keyword") String keyword,
+            @RequestParam(required = false) Integer limit) {
+        List<Map<String, Object>> products = productService.searchFieldsByName(fields, keyword, limit);
         return ResponseEntity.ok(
             ApiResponse.success("Search completed successfully", products)
         );
@@ -164,6 +366,19 @@ public class ProductController {
         );
     }
 
+    /**
+     * Bulk import products from newline-delimited JSON
+     * @param body NDJSON request body, one product per line
+     * @return Import report with per-line errors
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ApiResponse<BulkImportResponse>> importProducts(InputStream body) {
+        BulkImportResponse report = productImportService.importProducts(body);
+        return ResponseEntity.ok(
+            ApiResponse.success("Product import completed", report)
+        );
+    }
+
     /**
      * Update existing product
      * @param id Product ID
@@ -235,6 +450,38 @@ public class ProductController {
         );
     }
 
+    /**
+     * Reserve stock atomically
+     * @param id Product ID
+     * @param amount Quantity to take
+     * @return Applied adjustment, or 409 if not enough stock is left
+     */
+    @PatchMapping("/{id}/quantity/decrement")
+    public ResponseEntity<ApiResponse<StockAdjustmentResponse>> decrementProductQuantity(
+            @PathVariable Long id,
+            @RequestParam int amount) {
+        StockAdjustmentResponse adjustment = productService.decrementQuantity(id, amount);
+        return ResponseEntity.ok(
+            ApiResponse.success("Product stock reserved successfully", adjustment)
+        );
+    }
+
+    /**
+     * Return stock atomically
+     * @param id Product ID
+     * @param amount Quantity to add
+     * @return Applied adjustment
+     */
+    @PatchMapping("/{id}/quantity/increment")
+    public ResponseEntity<ApiResponse<StockAdjustmentResponse>> incrementProductQuantity(
+            @PathVariable Long id,
+            @RequestParam int amount) {
+        StockAdjustmentResponse adjustment = productService.incrementQuantity(id, amount);
+        return ResponseEntity.ok(
+            ApiResponse.success("Product stock returned successfully", adjustment)
+        );
+    }
+
     /**
      * Get total product count
      * @return Count of products
@@ -271,5 +518,40 @@ public class ProductController {
             ApiResponse.success("Product count by category retrieved successfully", count)
         );
     }
-}
 
+    /**
+     * Get product counts per category, status and price bucket
+     * @return Facet counts
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<ProductFacetsResponse>> getProductFacets() {
+        ProductFacetsResponse facets = productService.facets();
+        return ResponseEntity.ok(
+            ApiResponse.success("Product facets retrieved successfully", facets)
+        );
+    }
+
+    /**
+     * Get product lookup cache statistics
+     * @return Hit, miss and eviction counters per lookup key
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<Map<String, CacheStatsResponse>>> getCacheStats() {
+        Map<String, CacheStatsResponse> stats = productService.cacheStats();
+        return ResponseEntity.ok(
+            ApiResponse.success("Product cache statistics retrieved successfully", stats)
+        );
+    }
+
+    /**
+     * Get in-memory stock of the hot products
+     * @return Units available by product id
+     */
+    @GetMapping("/inventory/hot")
+    public ResponseEntity<ApiResponse<Map<Long, Long>>> getHotStock() {
+        Map<Long, Long> stock = productService.hotStock();
+        return ResponseEntity.ok(
+            ApiResponse.success("Hot product stock retrieved successfully", stock)
+        );
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.learn.controllers;
 
 import com.example.learn.dto.ApiResponse;
+import com.example.learn.dto.BulkDeleteResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.dto.UserProfileResponse;
 import com.example.learn.dto.UserRequest;
 import com.example.learn.dto.UserResponse;
+import com.example.learn.dto.UserTypeaheadResponse;
 import com.example.learn.models.UserRole;
 import com.example.learn.services.UserService;
 import jakarta.validation.Valid;
@@ -12,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -22,12 +27,48 @@ public class UserController {
 
     /**
      * Get all users
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of all users
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<UserResponse>>> getAllUsers() {
-        List<UserResponse> users = userService.findAll();
+    public ResponseEntity<ApiResponse<List<UserResponse>>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<UserResponse> users = userService.findAll(cursor, size);
+        return ConditionalResponses.ok(users, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Users retrieved successfully", users)
+        );
+    }
+
+    /**
+     * Get all users, reading and returning only the requested fields
+     * @param fields Comma-separated field names, e.g. name,email; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of users with the requested fields
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAllUserFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> users = userService.findAllFields(fields, cursor, size);
         return ResponseEntity.ok(
+            ApiResponse.page("Users retrieved successfully", users)
+        );
+    }
+
+    /**
+     * Get several users by ID
+     * @param ids User IDs
+     * @return User details by id, without the ids that do not exist
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<ApiResponse<Map<Long, UserResponse>>> getUsersByIds(
+            @RequestParam(required = false) List<Long> ids) {
+        Map<Long, UserResponse> users = userService.findByIds(ids);
+        return ConditionalResponses.ok(users.values(), ConditionalResponses::fingerprint).body(
             ApiResponse.success("Users retrieved successfully", users)
         );
     }
@@ -40,11 +81,24 @@ public class UserController {
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable Long id) {
         UserResponse user = userService.findById(id);
-        return ResponseEntity.ok(
+        return ConditionalResponses.ok(user).body(
             ApiResponse.success("User retrieved successfully", user)
         );
     }
 
+    /**
+     * Get user profile: the user, their addresses and their default address
+     * @param id User ID
+     * @return User profile
+     */
+    @GetMapping("/{id}/profile")
+    public ResponseEntity<ApiResponse<UserProfileResponse>> getUserProfile(@PathVariable Long id) {
+        UserProfileResponse profile = userService.findProfile(id);
+        return ResponseEntity.ok(
+            ApiResponse.success("User profile retrieved successfully", profile)
+        );
+    }
+
     /**
      * Get user by email
      * @param email User email
@@ -53,7 +107,7 @@ public class UserController {
     @GetMapping("/email/{email}")
     public ResponseEntity<ApiResponse<UserResponse>> getUserByEmail(@PathVariable String email) {
         UserResponse user = userService.findByEmail(email);
-        return ResponseEntity.ok(
+        return ConditionalResponses.ok(user).body(
             ApiResponse.success("User retrieved successfully", user)
         );
     }
@@ -61,27 +115,92 @@ public class UserController {
     /**
      * Get users by role
      * @param role User role
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of users with specified role
      */
     @GetMapping("/role/{role}")
-    public ResponseEntity<ApiResponse<List<UserResponse>>> getUsersByRole(@PathVariable UserRole role) {
-        List<UserResponse> users = userService.findByRole(role);
+    public ResponseEntity<ApiResponse<List<UserResponse>>> getUsersByRole(
+            @PathVariable UserRole role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<UserResponse> users = userService.findByRole(role, cursor, size);
+        return ConditionalResponses.ok(users, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Users retrieved successfully", users)
+        );
+    }
+
+    /**
+     * Get users by role, reading and returning only the requested fields
+     * @param role User role
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of users with specified role and the requested fields
+     */
+    @GetMapping(value = "/role/{role}", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getUserFieldsByRole(
+            @PathVariable UserRole role,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> users = userService.findFieldsByRole(fields, role, cursor, size);
         return ResponseEntity.ok(
-            ApiResponse.success("Users retrieved successfully", users)
+            ApiResponse.page("Users retrieved successfully", users)
         );
     }
 
     /**
      * Search users by name
      * @param name Search term
+     * @param cursor Cursor of the previous page
+     * @param size Page size
      * @return List of matching users
      */
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<UserResponse>>> searchUsersByName(
-            @RequestParam(name = "name") String name) {
-        List<UserResponse> users = userService.searchByName(name);
+            @RequestParam(name = "name") String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<UserResponse> users = userService.searchByName(name, cursor, size);
+        return ConditionalResponses.ok(users, ConditionalResponses::fingerprint).body(
+            ApiResponse.page("Search completed successfully", users)
+        );
+    }
+
+    /**
+     * Search users by name, reading and returning only the requested fields
+     * @param name Search term
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page
+     * @param size Page size
+     * @return List of matching users with the requested fields
+     */
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> searchUserFieldsByName(
+            @RequestParam(name = "name") String name,
+            @RequestParam String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<Map<String, Object>> users = userService.searchFieldsByName(fields, name, cursor, size);
+        return ResponseEntity.ok(
+            ApiResponse.page("Search completed successfully", users)
+        );
+    }
+
+    /**
+     * Suggest users by name prefix
+     * @param q Typed text
+     * @param limit Maximum number of suggestions
+     * @return Matching user ids and names
+     */
+    @GetMapping("/typeahead")
+    public ResponseEntity<ApiResponse<UserTypeaheadResponse>> typeaheadUsers(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit) {
+        UserTypeaheadResponse suggestions = userService.typeahead(q, limit);
         return ResponseEntity.ok(
-            ApiResponse.success("Search completed successfully", users)
+            ApiResponse.success("Suggestions retrieved successfully", suggestions)
         );
     }
 
@@ -128,6 +247,19 @@ public class UserController {
         );
     }
 
+    /**
+     * Delete several users and their addresses
+     * @param ids User IDs
+     * @return Number of users and addresses deleted
+     */
+    @DeleteMapping
+    public ResponseEntity<ApiResponse<BulkDeleteResponse>> deleteUsers(@RequestParam(required = false) List<Long> ids) {
+        BulkDeleteResponse result = userService.deleteUsers(ids);
+        return ResponseEntity.ok(
+            ApiResponse.success("Users deleted successfully", result)
+        );
+    }
+
     /**
      * Get total user count
      * @return Count of users
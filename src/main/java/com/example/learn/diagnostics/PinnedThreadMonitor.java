@@ -0,0 +1,93 @@
+package com.example.learn.diagnostics;
+
+import com.example.learn.config.PinningDiagnosticsProperties;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Logs virtual threads that stay pinned to their carrier thread, typically because they blocked
+ * (on JDBC, a lock or I/O) inside a synchronized block or a native frame. A pinned carrier serves
+ * no other virtual thread until it unblocks, so a few of them under load cap request concurrency
+ * at the carrier count. Events come from an in-process JFR stream of jdk.VirtualThreadPinned.
+ * For a one-off investigation -Djdk.tracePinnedThreads=full prints the same stacks without JFR.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PinnedThreadMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final PinningDiagnosticsProperties properties;
+    private final Environment environment;
+
+    private final LongAdder pinnedCount = new LongAdder();
+    private RecordingStream stream;
+
+    /**
+     * Start streaming pinning events if enabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!properties.isEnabled() || stream != null) {
+            return;
+        }
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            log.info("Virtual threads are off (spring.threads.virtual.enabled); pinning diagnostics will be quiet");
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(properties.getThreshold()).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        log.info("Pinning diagnostics started, reporting pins longer than {}", properties.getThreshold());
+    }
+
+    /**
+     * Number of pinned intervals reported since startup
+     * @return Count of jdk.VirtualThreadPinned events over the threshold
+     */
+    public long pinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private void report(RecordedEvent event) {
+        pinnedCount.increment();
+        String thread = event.getThread() != null ? event.getThread().getJavaName() : "unknown";
+        log.warn("Virtual thread {} was pinned for {} ms:\n{}", thread, event.getDuration().toMillis(),
+                frames(event.getStackTrace()));
+    }
+
+    private String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+                .limit(properties.getStackDepth())
+                .map(frame -> "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.learn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of addresses in one city, keyed by the upper-cased country, state and city
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddressGeoCount {
+    private String country;
+    private String state;
+    private String city;
+    private long count;
+}
@@ -0,0 +1,24 @@
+package com.example.learn.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Address count of a region and of each region below it: countries, then states, then cities
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AddressRollupResponse {
+    private long count;
+
+    /**
+     * Sub-regions by upper-cased name, absent at city level
+     */
+    private Map<String, AddressRollupResponse> regions;
+}
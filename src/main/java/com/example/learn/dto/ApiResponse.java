@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -16,6 +17,7 @@ public class ApiResponse<T> {
     private String message;
     private T data;
     private LocalDateTime timestamp;
+    private String nextCursor;
 
     public ApiResponse(boolean success, String message, T data) {
         this.success = success;
@@ -32,8 +34,14 @@ public class ApiResponse<T> {
         return new ApiResponse<>(true, "Success", data);
     }
 
+    public static <T> ApiResponse<List<T>> page(String message, CursorPage<T> page) {
+        ApiResponse<List<T>> response = new ApiResponse<>(true, message, page.getItems());
+        response.setNextCursor(page.getNextCursor());
+        return response;
+    }
+
     public static <T> ApiResponse<T> error(String message) {
-        return new ApiResponse<>(false, message, null, LocalDateTime.now());
+        return new ApiResponse<>(false, message, null, LocalDateTime.now(), null);
     }
 }
 
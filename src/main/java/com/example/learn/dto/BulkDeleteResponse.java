@@ -0,0 +1,13 @@
+package com.example.learn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResponse {
+    private int usersDeleted;
+    private int addressesDeleted;
+}
@@ -0,0 +1,32 @@
+package com.example.learn.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkImportResponse {
+    private long received;
+    private long created;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<BulkRowError> errors = new ArrayList<>();
+
+    /**
+     * Record a failed row, listing it only while under the reporting limit
+     * @param row Row (line) number, starting at 1
+     * @param message Failure reason
+     * @param maxReportedErrors Reporting limit
+     */
+    public void addError(long row, String message, int maxReportedErrors) {
+        failed++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new BulkRowError(row, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+}
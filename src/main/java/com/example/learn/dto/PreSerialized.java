@@ -0,0 +1,74 @@
+package com.example.learn.dto;
+
+import lombok.Getter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.core.json.JsonGeneratorBase;
+import tools.jackson.databind.JacksonSerializable;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * A value that may carry its own JSON, serialised ahead of time.
+ * When the JSON is present and the response is JSON, it is copied into the enclosing document
+ * as raw UTF-8 bytes, so the value is never walked; otherwise (no JSON, or a binary format such
+ * as CBOR) the value is serialised as usual.
+ */
+@Getter
+public class PreSerialized<T> extends JacksonSerializable.Base {
+
+    private final T value;
+    private final SerializableString json;
+
+    private PreSerialized(T value, SerializableString json) {
+        this.value = value;
+        this.json = json;
+    }
+
+    /**
+     * Wrap a value that is serialised on write
+     * @param value Value
+     * @return PreSerialized without JSON
+     */
+    public static <T> PreSerialized<T> of(T value) {
+        return new PreSerialized<>(value, null);
+    }
+
+    /**
+     * Wrap a value together with its JSON
+     * @param value Value
+     * @param json JSON of the value, as produced by the application's mapper
+     * @return PreSerialized holding the JSON and its UTF-8 encoding
+     */
+    public static <T> PreSerialized<T> of(T value, String json) {
+        SerializedString serialized = new SerializedString(json);
+        // Encode once here so every write is a byte copy
+        serialized.asUnquotedUTF8();
+        return new PreSerialized<>(value, serialized);
+    }
+
+    /**
+     * Approximate heap footprint of the JSON, as characters plus UTF-8 bytes
+     * @return Size in bytes
+     */
+    public int jsonWeight() {
+        return json != null ? 3 * json.charLength() : 0;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializationContext ctxt) throws JacksonException {
+        if (json != null && gen instanceof JsonGeneratorBase) {
+            gen.writeRawValue(json);
+        } else {
+            ctxt.writeValue(gen, value);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializationContext ctxt, TypeSerializer typeSer)
+            throws JacksonException {
+        serialize(gen, ctxt);
+    }
+}
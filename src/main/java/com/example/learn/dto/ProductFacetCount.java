@@ -0,0 +1,19 @@
+package com.example.learn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of products sharing one combination of facet values
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetCount {
+    private String category;
+    private boolean active;
+    private boolean inStock;
+    private int priceBucket;
+    private long count;
+}
@@ -0,0 +1,17 @@
+package com.example.learn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsResponse {
+    private long total;
+    private Map<String, Long> categories;
+    private Map<String, Long> status;
+    private Map<String, Long> priceBuckets;
+}
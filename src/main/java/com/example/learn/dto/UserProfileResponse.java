@@ -0,0 +1,16 @@
+package com.example.learn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfileResponse {
+    private UserResponse user;
+    private List<AddressResponse> addresses;
+    private AddressResponse defaultAddress;
+}
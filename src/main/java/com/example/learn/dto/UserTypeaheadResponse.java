@@ -0,0 +1,19 @@
+package com.example.learn.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTypeaheadResponse {
+    private List<UserSuggestion> suggestions;
+
+    /**
+     * True if the latency budget ran out before the scan finished, so better matches may exist
+     */
+    private boolean truncated;
+}
@@ -0,0 +1,36 @@
+package com.example.learn.events;
+
+import com.example.learn.dto.AddressResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by AddressService on every single-address write.
+ * Listeners maintaining in-memory views receive it after the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class AddressChangedEvent {
+
+    /**
+     * Address state before the write, null when the address was created
+     */
+    private final AddressResponse previous;
+
+    /**
+     * Address state after the write, null when the address was deleted
+     */
+    private final AddressResponse current;
+
+    public static AddressChangedEvent created(AddressResponse current) {
+        return new AddressChangedEvent(null, current);
+    }
+
+    public static AddressChangedEvent updated(AddressResponse previous, AddressResponse current) {
+        return new AddressChangedEvent(previous, current);
+    }
+
+    public static AddressChangedEvent deleted(AddressResponse previous) {
+        return new AddressChangedEvent(previous, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.learn.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * Published when all addresses of some users are removed by a bulk DELETE.
+ * Unlike AddressChangedEvent it carries no snapshots, because the rows are never loaded.
+ */
+@Getter
+@AllArgsConstructor
+public class AddressesPurgedEvent {
+
+    private final Collection<Long> userIds;
+
+    /**
+     * Number of addresses deleted
+     */
+    private final int count;
+}
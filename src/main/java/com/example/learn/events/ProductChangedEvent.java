@@ -0,0 +1,36 @@
+package com.example.learn.events;
+
+import com.example.learn.dto.ProductResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by ProductService on every product write.
+ * Listeners maintaining in-memory views receive it after the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    /**
+     * Product state before the write, null when the product was created
+     */
+    private final ProductResponse previous;
+
+    /**
+     * Product state after the write, null when the product was deleted
+     */
+    private final ProductResponse current;
+
+    public static ProductChangedEvent created(ProductResponse current) {
+        return new ProductChangedEvent(null, current);
+    }
+
+    public static ProductChangedEvent updated(ProductResponse previous, ProductResponse current) {
+        return new ProductChangedEvent(previous, current);
+    }
+
+    public static ProductChangedEvent deleted(ProductResponse previous) {
+        return new ProductChangedEvent(previous, null);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.learn.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a product's quantity is adjusted in place by a conditional UPDATE.
+ * Unlike ProductChangedEvent it carries no snapshots, because the row is never loaded; at most
+ * the quantity the change left behind is read back.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductStockChangedEvent {
+
+    private final Long productId;
+
+    /**
+     * Signed quantity change that was applied
+     */
+    private final int delta;
+
+    /**
+     * Quantity after the change, null when it is not known
+     */
+    private final Integer quantity;
+
+    /**
+     * Whether the product went out of stock or came back into stock
+     * @return true if the change crossed zero, or might have when the resulting quantity is not known
+     */
+    public boolean crossesZero() {
+        if (quantity == null) {
+            return delta != 0;
+        }
+        return delta < 0 ? quantity == 0 : delta > 0 && quantity == delta;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.learn.events;
+
+import com.example.learn.dto.UserResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by UserService when a user is created or updated.
+ * Listeners maintaining in-memory views receive it after the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    /**
+     * User state after the write
+     */
+    private final UserResponse current;
+}
@@ -0,0 +1,16 @@
+package com.example.learn.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * Published by UserService when users are deleted by bulk DELETE; only their ids are known
+ */
+@Getter
+@AllArgsConstructor
+public class UsersDeletedEvent {
+
+    private final Collection<Long> userIds;
+}
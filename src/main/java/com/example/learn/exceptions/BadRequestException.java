@@ -0,0 +1,12 @@
+package com.example.learn.exceptions;
+
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String fieldName, Object fieldValue) {
+        super(String.format("Invalid value for %s : '%s'", fieldName, fieldValue));
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.learn.exceptions;
+
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+
+    public InsufficientStockException(Long productId, int requested) {
+        super(String.format("Insufficient stock for product id : '%s' to reserve %d", productId, requested));
+    }
+}
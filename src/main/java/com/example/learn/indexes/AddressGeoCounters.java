@@ -0,0 +1,257 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.RollupProperties;
+import com.example.learn.dto.AddressGeoCount;
+import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.AddressRollupResponse;
+import com.example.learn.events.AddressChangedEvent;
+import com.example.learn.events.AddressesPurgedEvent;
+import com.example.learn.repositories.AddressRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Address counts by country, state and city.
+ * Seeded from one grouped aggregate query at startup, then adjusted by committed address
+ * writes so a dashboard read never scans addresses. Bulk purges carry no per-row state, so
+ * they mark the counters stale and the next read recomputes them. A periodic reconciliation
+ * replaces the counters with a fresh grouped count and logs any drift it corrects. Deltas and
+ * recounts are ordered by a CommitFence, so a write committing during a recount is neither
+ * counted twice nor reported as drift.
+ * Region names are upper-cased, matching the generated key columns the lookups use.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AddressGeoCounters {
+
+    private final AddressRepository addressRepository;
+    private final RollupProperties properties;
+    private final TransactionOperations transactionOperations;
+    private final CommitFence fence = new CommitFence();
+    // A lock rather than a monitor, so a virtual thread waiting here does not pin its carrier (Java 21 to 23)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Node root;
+    private boolean stale;
+
+    /**
+     * Reload the counters from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Node built = fence.recount(transactionOperations, () -> install(query()));
+        log.info("Address geo counters built for {} addresses", built.count);
+    }
+
+    /**
+     * Recompute the counters and report how far the incremental updates had drifted
+     */
+    @Scheduled(initialDelayString = "${app.rollups.addresses.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.rollups.addresses.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!properties.isInMemory()) {
+            return;
+        }
+        fence.recount(transactionOperations, () -> {
+            Node fresh = query();
+            lock.lock();
+            try {
+                if (root == null) {
+                    return null;
+                }
+                // No commit is waiting for its delta here, so any difference is real drift
+                if (!stale && !fresh.sameAs(root)) {
+                    log.warn("Address geo counters drifted ({} counted, {} in the database); replaced",
+                            root.count, fresh.count);
+                }
+                root = fresh;
+                stale = false;
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Move an address from its previous region to its current one once the write commits
+     * @param event Address change
+     */
+    @EventListener
+    public void onAddressChanged(AddressChangedEvent event) {
+        fence.afterCommit(() -> {
+            lock.lock();
+            try {
+                if (root == null) {
+                    return;
+                }
+                if (event.getPrevious() != null) {
+                    add(event.getPrevious(), -1);
+                }
+                if (event.getCurrent() != null) {
+                    add(event.getCurrent(), 1);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Addresses were deleted without snapshots; recount on the next read
+     * @param event Bulk purge
+     */
+    @EventListener
+    public void onAddressesPurged(AddressesPurgedEvent event) {
+        fence.afterCommit(() -> {
+            lock.lock();
+            try {
+                stale = true;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Counts from the in-memory counters, rebuilt first if they are missing or stale
+     * @param country Country to narrow to, null for every country
+     * @param state State within the country to narrow to, null for every state
+     * @return AddressRollupResponse of the requested region
+     */
+    public AddressRollupResponse snapshot(String country, String state) {
+        lock.lock();
+        try {
+            if (root != null && !stale) {
+                return toResponse(root, country, state);
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Recount outside the lock: writes waiting on it would hold the fence the recount needs
+        return fence.recount(transactionOperations, () -> {
+            lock.lock();
+            try {
+                if (root == null || stale) {
+                    install(query());
+                }
+                return toResponse(root, country, state);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Counts computed by a single grouped query
+     * @param country Country to narrow to, null for every country
+     * @param state State within the country to narrow to, null for every state
+     * @return AddressRollupResponse of the requested region
+     */
+    public AddressRollupResponse fromDatabase(String country, String state) {
+        return toResponse(query(), country, state);
+    }
+
+    private Node install(Node counted) {
+        lock.lock();
+        try {
+            root = counted;
+            stale = false;
+            return counted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Node query() {
+        Node result = new Node();
+        for (AddressGeoCount row : addressRepository.countByGeography()) {
+            result.add(row.getCountry(), row.getState(), row.getCity(), row.getCount());
+        }
+        return result;
+    }
+
+    private void add(AddressResponse address, long delta) {
+        root.add(key(address.getCountry()), key(address.getState()), key(address.getCity()), delta);
+    }
+
+    private static String key(String name) {
+        return name != null ? name.toUpperCase(Locale.ROOT) : null;
+    }
+
+    private static AddressRollupResponse toResponse(Node root, String country, String state) {
+        Node node = root;
+        int depth = 0;
+        for (String name : new String[]{country, state}) {
+            if (name == null) {
+                break;
+            }
+            node = node.regions.getOrDefault(key(name), new Node());
+            depth++;
+        }
+        return node.toResponse(depth);
+    }
+
+    /**
+     * Count of one region and its sub-regions by name
+     */
+    private static final class Node {
+
+        private long count;
+        private final Map<String, Node> regions = new TreeMap<>();
+
+        private void add(String country, String state, String city, long delta) {
+            add(new String[]{country, state, city}, 0, delta);
+        }
+
+        private void add(String[] path, int depth, long delta) {
+            count += delta;
+            if (depth == path.length) {
+                return;
+            }
+            String name = path[depth] != null ? path[depth] : "";
+            Node child = regions.computeIfAbsent(name, key -> new Node());
+            child.add(path, depth + 1, delta);
+            if (child.count <= 0) {
+                regions.remove(name);
+            }
+        }
+
+        private boolean sameAs(Node other) {
+            if (count != other.count || regions.size() != other.regions.size()) {
+                return false;
+            }
+            for (Map.Entry<String, Node> entry : regions.entrySet()) {
+                Node match = other.regions.get(entry.getKey());
+                if (match == null || !entry.getValue().sameAs(match)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Copy of this region; depth 2 is a state, whose cities are leaves
+         */
+        private AddressRollupResponse toResponse(int depth) {
+            if (depth == 3) {
+                return new AddressRollupResponse(count, null);
+            }
+            Map<String, AddressRollupResponse> children = new LinkedHashMap<>();
+            regions.forEach((name, child) -> children.put(name, child.toResponse(depth + 1)));
+            return new AddressRollupResponse(count, children);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.learn.indexes;
+
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Orders the deltas of an in-memory view against recounts of the database.
+ * A write holds the fence shared from just before it commits until its delta is applied; a
+ * recount holds it exclusively while its query runs. Every commit is therefore either applied
+ * before the query starts and counted by it, or made after the query and applied on top of the
+ * result, so no change is counted twice or lost when a recount overlaps a burst of writes.
+ */
+final class CommitFence {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Apply a change once the current transaction commits.
+     * Outside a transaction the write has already committed, so the change is applied at once;
+     * only idempotent changes, such as marking a view stale, are safe from that path.
+     * @param change Change to the in-memory view
+     */
+    void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.readLock().lock();
+            try {
+                change.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean held;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lock.readLock().lock();
+                held = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (held) {
+                    held = false;
+                    lock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Run a recount while no write is between its commit and its delta.
+     * The connection is taken before the fence, so writers parked on it cannot starve the query of one.
+     * @param transactionOperations Transaction the query runs in
+     * @param query Recount, installing its result before it returns
+     * @return Result of the query
+     */
+    <T> T recount(TransactionOperations transactionOperations, Supplier<T> query) {
+        return transactionOperations.execute(status -> {
+            lock.writeLock().lock();
+            try {
+                return query.get();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.FacetProperties;
+import com.example.learn.dto.ProductFacetCount;
+import com.example.learn.dto.ProductFacetsResponse;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.events.ProductStockChangedEvent;
+import com.example.learn.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Product facet counts (category, status, price bucket).
+ * Seeded from one grouped aggregate query at startup, then adjusted by committed product
+ * writes so the storefront sidebar never has to query per category. In-place stock
+ * adjustments carry no before/after state; the one that moves a product across zero marks the
+ * counters stale and the next read recomputes them. Deltas and recounts are ordered by a
+ * CommitFence, so a write committing during a recount is neither lost nor counted twice.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetCounters {
+
+    private static final String UNCATEGORIZED = "uncategorized";
+
+    private final ProductRepository productRepository;
+    private final FacetProperties properties;
+    private final TransactionOperations transactionOperations;
+    private final CommitFence fence = new CommitFence();
+    // A lock rather than a monitor, so a virtual thread waiting here does not pin its carrier (Java 21 to 23)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Tally tally;
+    private boolean stale;
+
+    /**
+     * Reload the counters from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Tally built = fence.recount(transactionOperations, () -> install(query()));
+        log.info("Product facet counters built for {} products", built.total);
+    }
+
+    /**
+     * Move a product from its previous facet values to its current ones once the write commits
+     * @param event Product change
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        fence.afterCommit(() -> {
+            lock.lock();
+            try {
+                if (tally == null) {
+                    return;
+                }
+                if (event.getPrevious() != null) {
+                    tally.add(event.getPrevious(), -1);
+                }
+                if (event.getCurrent() != null) {
+                    tally.add(event.getCurrent(), 1);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Stock moved without a snapshot; only a move across zero changes the in-stock split
+     * @param event Stock change
+     */
+    @EventListener
+    public void onStockChanged(ProductStockChangedEvent event) {
+        if (!event.crossesZero()) {
+            return;
+        }
+        fence.afterCommit(() -> {
+            lock.lock();
+            try {
+                stale = true;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Facet counts from the in-memory counters, rebuilt first if they are missing or stale
+     * @return ProductFacetsResponse
+     */
+    public ProductFacetsResponse snapshot() {
+        lock.lock();
+        try {
+            if (tally != null && !stale) {
+                return tally.toResponse();
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Recount outside the lock: writes waiting on it would hold the fence the recount needs
+        return fence.recount(transactionOperations, () -> {
+            lock.lock();
+            try {
+                if (tally == null || stale) {
+                    install(query());
+                }
+                return tally.toResponse();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Facet counts computed by a single grouped query
+     * @return ProductFacetsResponse
+     */
+    public ProductFacetsResponse fromDatabase() {
+        return query().toResponse();
+    }
+
+    private Tally install(Tally counted) {
+        lock.lock();
+        try {
+            tally = counted;
+            stale = false;
+            return counted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Tally query() {
+        Tally result = new Tally(properties.getPriceBuckets());
+        for (ProductFacetCount row : productRepository.countFacets(properties.getPriceBuckets())) {
+            result.add(row.getCategory(), row.isActive(), row.isInStock(), row.getPriceBucket(), row.getCount());
+        }
+        return result;
+    }
+
+    private static final class Tally {
+
+        private final List<BigDecimal> priceBounds;
+        private final Map<String, Long> categories = new TreeMap<>();
+        private final long[] priceBuckets;
+        private long total;
+        private long active;
+        private long inStock;
+        private long outOfStock;
+
+        private Tally(List<BigDecimal> priceBounds) {
+            this.priceBounds = priceBounds;
+            this.priceBuckets = new long[priceBounds.size() + 1];
+        }
+
+        private void add(ProductResponse product, long delta) {
+            boolean isActive = Boolean.TRUE.equals(product.getIsActive());
+            boolean hasStock = product.getQuantity() != null && product.getQuantity() > 0;
+            add(product.getCategory(), isActive, hasStock, bucketOf(product.getPrice()), delta);
+        }
+
+        private void add(String category, boolean isActive, boolean hasStock, int bucket, long delta) {
+            String key = category != null ? category.toLowerCase(Locale.ROOT) : UNCATEGORIZED;
+            long count = categories.getOrDefault(key, 0L) + delta;
+            if (count > 0) {
+                categories.put(key, count);
+            } else {
+                categories.remove(key);
+            }
+            total += delta;
+            if (isActive) {
+                active += delta;
+                if (hasStock) {
+                    inStock += delta;
+                } else {
+                    outOfStock += delta;
+                }
+            }
+            priceBuckets[bucket] += delta;
+        }
+
+        private int bucketOf(BigDecimal price) {
+            for (int i = 0; i < priceBounds.size(); i++) {
+                if (price.compareTo(priceBounds.get(i)) < 0) {
+                    return i;
+                }
+            }
+            return priceBounds.size();
+        }
+
+        private ProductFacetsResponse toResponse() {
+            Map<String, Long> status = new LinkedHashMap<>();
+            status.put("active", active);
+            status.put("inactive", total - active);
+            status.put("inStock", inStock);
+            status.put("outOfStock", outOfStock);
+
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            String lower = "0";
+            for (int i = 0; i < priceBounds.size(); i++) {
+                String upper = priceBounds.get(i).toPlainString();
+                buckets.put(lower + "-" + upper, priceBuckets[i]);
+                lower = upper;
+            }
+            buckets.put(lower + "+", priceBuckets[priceBounds.size()]);
+
+            return new ProductFacetsResponse(total, new TreeMap<>(categories), status, buckets);
+        }
+    }
+}
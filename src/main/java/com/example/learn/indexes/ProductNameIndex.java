@@ -0,0 +1,315 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.SearchProperties;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over product names (and optionally descriptions).
+ * A substring query is answered by intersecting the posting lists of its trigrams,
+ * smallest first, then verifying the few surviving candidates, instead of running
+ * LIKE '%keyword%' over the whole table.
+ * Committed writes are applied in the order their listeners run, which for two concurrent
+ * writes to one product need not be the order they committed in; a periodic reconciliation
+ * rebuilds the index from the table, logs any drift it corrects, and bounds how long a
+ * misordered write can show. Writes and rebuilds are ordered by a CommitFence, so a write
+ * committing during a rebuild is neither lost nor reported as drift.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductNameIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private final ProductRepository productRepository;
+    private final SearchProperties properties;
+    private final TransactionOperations transactionOperations;
+    private final CommitFence fence = new CommitFence();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Contents contents;
+
+    private record Document(Long id, String name, String description) {
+    }
+
+    private record Match(Long id, int rank, int length) {
+    }
+
+    /**
+     * Build the index from the products table, one keyset page at a time
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Contents built = fence.recount(transactionOperations, () -> install(load()));
+        log.info("Product name index built with {} products and {} name trigrams",
+                built.documents.size(), built.namePostings.size());
+    }
+
+    /**
+     * Rebuild the index and report whether the incremental updates had drifted from the table
+     */
+    @Scheduled(initialDelayString = "${app.search.products.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.search.products.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        fence.recount(transactionOperations, () -> {
+            Contents fresh = load();
+            lock.writeLock().lock();
+            try {
+                if (contents == null) {
+                    return null;
+                }
+                // No commit is waiting to be applied here, so any difference is real drift
+                if (!fresh.documents.equals(contents.documents)) {
+                    log.warn("Product name index drifted ({} indexed, {} in the database); replaced",
+                            contents.documents.size(), fresh.documents.size());
+                }
+                contents = fresh;
+                return null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Keep the index in step with product writes once they commit
+     * @param event Product change
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        fence.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                if (contents == null) {
+                    return;
+                }
+                if (event.getPrevious() != null) {
+                    contents.remove(event.getPrevious().getId());
+                }
+                ProductResponse current = event.getCurrent();
+                if (current != null) {
+                    contents.add(current.getId(), current.getName(), current.getDescription());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Find products whose name (or description, if indexed) contains the keyword
+     * @param keyword Search keyword, case-insensitive
+     * @param limit Maximum number of ids to return
+     * @return Product ids, best match first: exact name, name prefix, word start, substring, description
+     */
+    public List<Long> search(String keyword, int limit) {
+        String query = normalize(keyword);
+        if (query == null) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (contents == null) {
+                return List.of();
+            }
+            Map<String, Set<Long>> namePostings = contents.namePostings;
+            Map<String, Set<Long>> descriptionPostings = contents.descriptionPostings;
+            Map<Long, Document> documents = contents.documents;
+            List<Match> matches = new ArrayList<>();
+            Set<Long> matchedByName = new HashSet<>();
+            for (Long id : candidates(documents, namePostings, query)) {
+                Document document = documents.get(id);
+                int position = document.name().indexOf(query);
+                if (position >= 0) {
+                    int rank = rankNameMatch(document.name(), query, position);
+                    matches.add(new Match(id, rank, document.name().length()));
+                    matchedByName.add(id);
+                }
+            }
+            if (properties.isIndexDescription()) {
+                for (Long id : candidates(documents, descriptionPostings, query)) {
+                    Document document = documents.get(id);
+                    if (!matchedByName.contains(id) && document.description() != null
+                            && document.description().contains(query)) {
+                        matches.add(new Match(id, 4, document.name().length()));
+                    }
+                }
+            }
+            return matches.stream()
+                    .sorted(Comparator.comparingInt(Match::rank)
+                            .thenComparingInt(Match::length)
+                            .thenComparing(Match::id))
+                    .limit(limit)
+                    .map(Match::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed products
+     * @return Document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return contents != null ? contents.documents.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int rankNameMatch(String name, String query, int position) {
+        if (name.equals(query)) {
+            return 0;
+        }
+        if (position == 0) {
+            return 1;
+        }
+        return Character.isLetterOrDigit(name.charAt(position - 1)) ? 3 : 2;
+    }
+
+    /**
+     * Ids whose text may contain the query: the intersection of its trigram posting lists.
+     * Queries shorter than a trigram fall back to scanning the in-memory documents.
+     */
+    private static Set<Long> candidates(Map<Long, Document> documents, Map<String, Set<Long>> postings,
+                                        String query) {
+        if (query.length() < GRAM_SIZE) {
+            return documents.keySet();
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : trigrams(query)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private Contents load() {
+        Contents loaded = new Contents(properties.isIndexDescription());
+        long afterId = 0L;
+        List<ProductResponse> batch;
+        do {
+            batch = productRepository.findResponsesAfter(afterId, Limit.of(properties.getBuildBatchSize()));
+            for (ProductResponse product : batch) {
+                loaded.add(product.getId(), product.getName(), product.getDescription());
+                afterId = product.getId();
+            }
+        } while (batch.size() == properties.getBuildBatchSize());
+        return loaded;
+    }
+
+    private Contents install(Contents built) {
+        lock.writeLock().lock();
+        try {
+            contents = built;
+            return built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void index(Map<String, Set<Long>> postings, String text, Long id) {
+        if (text == null) {
+            return;
+        }
+        for (String gram : trigrams(text)) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void unindex(Map<String, Set<Long>> postings, String text, Long id) {
+        if (text == null) {
+            return;
+        }
+        for (String gram : trigrams(text)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Documents and posting lists; built off to the side by a rebuild and swapped in whole
+     */
+    private static final class Contents {
+
+        private final boolean indexDescription;
+        private final Map<String, Set<Long>> namePostings = new HashMap<>();
+        private final Map<String, Set<Long>> descriptionPostings = new HashMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+
+        private Contents(boolean indexDescription) {
+            this.indexDescription = indexDescription;
+        }
+
+        private void add(Long id, String name, String description) {
+            remove(id);
+            String normalizedName = normalize(name);
+            String normalizedDescription = indexDescription ? normalize(description) : null;
+            documents.put(id, new Document(id, normalizedName != null ? normalizedName : "", normalizedDescription));
+            index(namePostings, normalizedName, id);
+            index(descriptionPostings, normalizedDescription, id);
+        }
+
+        private void remove(Long id) {
+            Document document = documents.remove(id);
+            if (document != null) {
+                unindex(namePostings, document.name(), id);
+                unindex(descriptionPostings, document.description(), id);
+            }
+        }
+    }
+}
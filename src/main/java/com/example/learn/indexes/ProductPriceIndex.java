@@ -0,0 +1,330 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.SearchProperties;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Active products sorted by (price in cents, id) in two parallel primitive arrays.
+ * A price range is located with two binary searches and read off in price order, so no
+ * BigDecimal comparison or entity hydration happens for rows outside the page.
+ * Readers see an immutable snapshot; committed writes are queued and merged into a fresh copy
+ * on the next read, so a burst of writes (such as a bulk import) costs a single copy.
+ * Writes are queued in the order their listeners run, which for two concurrent writes to one
+ * product need not be the order they committed in; a periodic reconciliation rebuilds the
+ * index, logs any drift it corrects, and bounds how long a misordered price can show. Writes
+ * and rebuilds are ordered by a CommitFence, so a write committing during a rebuild is neither
+ * lost nor reported as drift.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductPriceIndex {
+
+    private final ProductRepository productRepository;
+    private final SearchProperties properties;
+    private final TransactionOperations transactionOperations;
+    private final CommitFence fence = new CommitFence();
+
+    private volatile Snapshot snapshot = new Snapshot(new long[0], new long[0]);
+
+    // A lock rather than a monitor, so a virtual thread waiting here does not pin its carrier (Java 21 to 23)
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private final Set<Long> pendingRemovals = new HashSet<>();
+    private final Map<Long, Long> pendingAdds = new HashMap<>();
+    private volatile boolean dirty;
+
+    private record Snapshot(long[] cents, long[] ids) {
+    }
+
+    /**
+     * Order of the ids returned by a range query
+     */
+    public enum Order {
+        ID, PRICE_ASC, PRICE_DESC
+    }
+
+    /**
+     * Position to continue a range query after: the sort key and id of the last row returned
+     */
+    public record Position(long key, long id) {
+    }
+
+    /**
+     * Build the index from the active products, one keyset page at a time
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Snapshot built = fence.recount(transactionOperations, () -> install(query()));
+        log.info("Product price index built with {} active products", built.ids().length);
+    }
+
+    /**
+     * Rebuild the index and report whether the incremental updates had drifted from the table
+     */
+    @Scheduled(initialDelayString = "${app.search.products.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.search.products.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        fence.recount(transactionOperations, () -> {
+            Snapshot fresh = query();
+            Snapshot indexed = current();
+            // No commit is waiting to be queued here, so any difference is real drift
+            if (!Arrays.equals(fresh.ids(), indexed.ids()) || !Arrays.equals(fresh.cents(), indexed.cents())) {
+                log.warn("Product price index drifted ({} indexed, {} in the database); replaced",
+                        indexed.ids().length, fresh.ids().length);
+            }
+            return install(fresh);
+        });
+    }
+
+    private Snapshot query() {
+        List<long[]> entries = new ArrayList<>();
+        long afterId = 0L;
+        List<ProductResponse> batch;
+        do {
+            batch = productRepository.findActiveResponsesAfter(afterId, Limit.of(properties.getBuildBatchSize()));
+            for (ProductResponse product : batch) {
+                entries.add(new long[]{toCents(product.getPrice()), product.getId()});
+                afterId = product.getId();
+            }
+        } while (batch.size() == properties.getBuildBatchSize());
+        entries.sort(ProductPriceIndex::compare);
+
+        long[] cents = new long[entries.size()];
+        long[] ids = new long[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            cents[i] = entries.get(i)[0];
+            ids[i] = entries.get(i)[1];
+        }
+        return new Snapshot(cents, ids);
+    }
+
+    private Snapshot install(Snapshot built) {
+        lock.lock();
+        try {
+            pendingRemovals.clear();
+            pendingAdds.clear();
+            dirty = false;
+            snapshot = built;
+            return built;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a product write once it commits; it becomes visible on the next read
+     * @param event Product change
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductResponse changed = event.getCurrent() != null ? event.getCurrent() : event.getPrevious();
+        ProductResponse current = event.getCurrent();
+        fence.afterCommit(() -> {
+            lock.lock();
+            try {
+                pendingRemovals.add(changed.getId());
+                pendingAdds.remove(changed.getId());
+                if (current != null && Boolean.TRUE.equals(current.getIsActive())) {
+                    pendingAdds.put(current.getId(), toCents(current.getPrice()));
+                }
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Find active products priced within [minPrice, maxPrice].
+     * Price order reads the page straight off the sorted arrays. ID order has to look at every
+     * entry in the range to find the smallest ids after the cursor, so each page costs
+     * O(range) rather than O(page); prefer price order for wide ranges.
+     * @param minPrice Lower bound, inclusive; values beyond the range of cents are clamped
+     * @param maxPrice Upper bound, inclusive; values beyond the range of cents are clamped
+     * @param order Order of the result
+     * @param after Position of the last row of the previous page, null for the first page
+     * @param limit Maximum number of ids to return
+     * @return Positions of the matching products in the requested order; the key is the price in
+     * cents, or the id for ID order
+     */
+    public List<Position> range(BigDecimal minPrice, BigDecimal maxPrice, Order order, Position after, int limit) {
+        long min = toBound(minPrice, RoundingMode.CEILING);
+        long max = toBound(maxPrice, RoundingMode.FLOOR);
+        Snapshot current = current();
+        if (min > max) {
+            return List.of();
+        }
+        // First index with cents >= min, first index with cents > max
+        int from = lowerBound(current, min, Long.MIN_VALUE);
+        int to = lowerBound(current, max, Long.MAX_VALUE);
+
+        List<Position> result = new ArrayList<>(Math.min(limit, Math.max(to - from, 0)));
+        switch (order) {
+            case PRICE_ASC -> {
+                int start = after == null ? from : Math.max(from, lowerBound(current, after.key(), after.id() + 1));
+                for (int i = start; i < to && result.size() < limit; i++) {
+                    result.add(new Position(current.cents()[i], current.ids()[i]));
+                }
+            }
+            case PRICE_DESC -> {
+                int start = after == null ? to - 1 : Math.min(to, lowerBound(current, after.key(), after.id())) - 1;
+                for (int i = start; i >= from && result.size() < limit; i--) {
+                    result.add(new Position(current.cents()[i], current.ids()[i]));
+                }
+            }
+            case ID -> {
+                // Keep the smallest ids above the cursor; a bounded max-heap avoids sorting the whole range
+                long afterId = after == null ? 0L : after.id();
+                PriorityQueue<Long> smallest = new PriorityQueue<>(limit + 1, (a, b) -> Long.compare(b, a));
+                for (int i = from; i < to; i++) {
+                    long id = current.ids()[i];
+                    if (id > afterId && (smallest.size() < limit || id < smallest.peek())) {
+                        smallest.add(id);
+                        if (smallest.size() > limit) {
+                            smallest.poll();
+                        }
+                    }
+                }
+                long[] ids = smallest.stream().mapToLong(Long::longValue).sorted().toArray();
+                for (long id : ids) {
+                    result.add(new Position(id, id));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of indexed (active) products
+     * @return Entry count
+     */
+    public int size() {
+        return current().ids().length;
+    }
+
+    /**
+     * Convert a price to whole cents
+     * @param price Price with at most two decimals
+     * @return Price in cents
+     */
+    public static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Cents of a query bound, clamped to the long range instead of overflowing
+     */
+    private static long toBound(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValue();
+    }
+
+    private Snapshot current() {
+        if (dirty) {
+            merge();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Copy the snapshot without the changed ids and merge in their new entries
+     */
+    private void merge() {
+        lock.lock();
+        try {
+            if (dirty) {
+                mergePending();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void mergePending() {
+        Snapshot old = snapshot;
+        long[][] adds = new long[pendingAdds.size()][];
+        int a = 0;
+        for (Map.Entry<Long, Long> entry : pendingAdds.entrySet()) {
+            adds[a++] = new long[]{entry.getValue(), entry.getKey()};
+        }
+        Arrays.sort(adds, ProductPriceIndex::compare);
+
+        int capacity = old.ids().length + adds.length;
+        long[] cents = new long[capacity];
+        long[] ids = new long[capacity];
+        int n = 0;
+        int i = 0;
+        a = 0;
+        while (i < old.ids().length || a < adds.length) {
+            if (i < old.ids().length && pendingRemovals.contains(old.ids()[i])) {
+                i++;
+            } else if (a == adds.length
+                    || (i < old.ids().length && compare(old.cents()[i], old.ids()[i], adds[a][0], adds[a][1]) < 0)) {
+                cents[n] = old.cents()[i];
+                ids[n++] = old.ids()[i++];
+            } else {
+                cents[n] = adds[a][0];
+                ids[n++] = adds[a++][1];
+            }
+        }
+        pendingRemovals.clear();
+        pendingAdds.clear();
+        snapshot = new Snapshot(Arrays.copyOf(cents, n), Arrays.copyOf(ids, n));
+        dirty = false;
+    }
+
+    /**
+     * First index whose (cents, id) is not less than the given pair
+     */
+    private static int lowerBound(Snapshot snapshot, long cents, long id) {
+        int low = 0;
+        int high = snapshot.ids().length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(snapshot.cents()[mid], snapshot.ids()[mid], cents, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long[] left, long[] right) {
+        return compare(left[0], left[1], right[0], right[1]);
+    }
+
+    private static int compare(long leftCents, long leftId, long rightCents, long rightId) {
+        int byCents = Long.compare(leftCents, rightCents);
+        return byCents != 0 ? byCents : Long.compare(leftId, rightId);
+    }
+}
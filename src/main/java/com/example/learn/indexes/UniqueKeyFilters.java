@@ -0,0 +1,177 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.BloomFilterProperties;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.repositories.ProductRepository;
+import com.example.learn.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Bloom filters over the keys that must be unique: user emails, product names and product SKUs.
+ * A negative answer is definite, so the uniqueness check only queries the database on a possible hit.
+ * Keys are added when they are written, before the transaction commits, so a committed key is never
+ * missing. Bloom filters cannot forget a key; deleted and renamed keys drop out when the filters are
+ * rebuilt from the database, which happens at startup and then periodically.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UniqueKeyFilters {
+
+    /**
+     * Unique key covered by a filter
+     */
+    public enum Key {
+        USER_EMAIL, PRODUCT_NAME, PRODUCT_SKU
+    }
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final BloomFilterProperties properties;
+
+    private final Map<Key, Slot> slots = new EnumMap<>(Key.class);
+    // A lock rather than a monitor: rebuild() scans the tables while holding it,
+    // and a virtual thread blocked on JDBC inside a monitor pins its carrier (Java 21 to 23)
+    private final ReentrantLock rebuilding = new ReentrantLock();
+
+    /**
+     * Filter in use plus the bookkeeping that keeps a rebuild from losing concurrent writes
+     */
+    private static final class Slot {
+        // Null until the first build; every check goes to the database meanwhile
+        private volatile BloomFilter current;
+        private final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        private BloomFilter building;
+        private List<String> addedSinceRebuild = new ArrayList<>();
+    }
+
+    {
+        for (Key key : Key.values()) {
+            slots.put(key, new Slot());
+        }
+    }
+
+    /**
+     * Whether the key may already be taken; false means it definitely is not
+     * @param key Key kind
+     * @param value Key value
+     * @return false only if no row has this value
+     */
+    public boolean mightContain(Key key, String value) {
+        BloomFilter filter = slots.get(key).current;
+        return !properties.isEnabled() || filter == null || filter.mightContain(value);
+    }
+
+    /**
+     * Record a key that is being written
+     * @param key Key kind
+     * @param value Key value, ignored if null or empty
+     */
+    public void add(Key key, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        Slot slot = slots.get(key);
+        slot.lock.lock();
+        try {
+            if (slot.current != null) {
+                slot.current.put(value);
+            }
+            if (slot.building != null) {
+                slot.building.put(value);
+            }
+            slot.addedSinceRebuild.add(value);
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    /**
+     * Record the name and SKU of a product as it is written, inside the writing transaction
+     * @param event Product change
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductResponse current = event.getCurrent();
+        if (current != null) {
+            add(Key.PRODUCT_NAME, current.getName());
+            add(Key.PRODUCT_SKU, current.getSku());
+        }
+    }
+
+    /**
+     * Rebuild every filter from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.bloom.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.bloom.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuilding.lock();
+        try {
+            rebuild(Key.USER_EMAIL, userRepository.count(), userRepository::findEmailsAfter);
+            rebuild(Key.PRODUCT_NAME, productRepository.count(), productRepository::findNamesAfter);
+            rebuild(Key.PRODUCT_SKU, productRepository.count(), productRepository::findSkusAfter);
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    /**
+     * Build a new filter from a keyset scan and swap it in.
+     * Keys written while the scan runs go into the new filter directly. Keys written since the
+     * previous rebuild started are added again, since their transactions may not have committed
+     * in time for the scan to see them.
+     */
+    private void rebuild(Key key, long rows, BiFunction<String, Limit, List<String>> page) {
+        Slot slot = slots.get(key);
+        BloomFilter filter = new BloomFilter(Math.max(properties.getExpectedInsertions(), 2 * rows),
+                properties.getFalsePositiveRate());
+        List<String> carried;
+        slot.lock.lock();
+        try {
+            slot.building = filter;
+            carried = slot.addedSinceRebuild;
+            slot.addedSinceRebuild = new ArrayList<>();
+        } finally {
+            slot.lock.unlock();
+        }
+        long count = 0;
+        String after = "";
+        List<String> batch;
+        do {
+            batch = page.apply(after, Limit.of(properties.getBuildBatchSize()));
+            for (String value : batch) {
+                filter.put(value);
+                after = value;
+            }
+            count += batch.size();
+        } while (batch.size() == properties.getBuildBatchSize());
+        slot.lock.lock();
+        try {
+            carried.forEach(filter::put);
+            slot.current = filter;
+            slot.building = null;
+        } finally {
+            slot.lock.unlock();
+        }
+        log.info("Unique key filter {} built with {} keys in {} KB", key, count, filter.sizeInBytes() / 1024);
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.TypeaheadProperties;
+import com.example.learn.dto.UserResponse;
+import com.example.learn.dto.UserSuggestion;
+import com.example.learn.dto.UserTypeaheadResponse;
+import com.example.learn.events.UserChangedEvent;
+import com.example.learn.events.UsersDeletedEvent;
+import com.example.learn.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix index over the words of user names, for typeahead.
+ * Every word of every name is case- and accent-folded and stored with the user id in two parallel
+ * arrays sorted by (word, id), so a prefix is located with one binary search and its completions
+ * are read off in alphabetical order of the matching word, then by id. Readers see an immutable
+ * snapshot; committed writes are queued and merged into a fresh copy by a background task, so a
+ * lookup never pays for a copy and a burst of writes costs one. Lookups stop scanning when their
+ * latency budget runs out and say so.
+ * Writes are queued in the order their listeners run, which for two concurrent writes to one
+ * user need not be the order they committed in; a periodic reconciliation rebuilds the index,
+ * logs any drift it corrects, and bounds how long a misordered name can show. Writes and
+ * rebuilds are ordered by a CommitFence, so a write committing during a rebuild is neither lost
+ * nor reported as drift.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserNameIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final UserRepository userRepository;
+    private final TypeaheadProperties properties;
+    private final TransactionOperations transactionOperations;
+    private final CommitFence fence = new CommitFence();
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new long[0]);
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    // A lock rather than a monitor, so a virtual thread waiting here does not pin its carrier (Java 21 to 23)
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private final Set<Long> pendingRemovals = new HashSet<>();
+    private final Map<Long, String> pendingAdds = new HashMap<>();
+    private volatile boolean dirty;
+
+    private record Snapshot(String[] words, long[] ids) {
+    }
+
+    private record Entry(String word, long id) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::word).thenComparingLong(Entry::id);
+
+    private record Built(Snapshot snapshot, Map<Long, String> names) {
+    }
+
+    /**
+     * Build the index from every user, one keyset page at a time
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Built built = fence.recount(transactionOperations, () -> install(query()));
+        log.info("User name index built with {} words for {} users",
+                built.snapshot().ids().length, built.names().size());
+    }
+
+    /**
+     * Rebuild the index and report whether the incremental updates had drifted from the table
+     */
+    @Scheduled(initialDelayString = "${app.search.users.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.search.users.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        fence.recount(transactionOperations, () -> {
+            Built fresh = query();
+            // No commit is waiting to be queued here, so any difference is real drift
+            if (!fresh.names().equals(names)) {
+                log.warn("User name index drifted ({} indexed, {} in the database); replaced",
+                        names.size(), fresh.names().size());
+            }
+            return install(fresh);
+        });
+    }
+
+    private Built query() {
+        List<Entry> entries = new ArrayList<>();
+        Map<Long, String> loaded = new HashMap<>();
+        long afterId = 0L;
+        List<UserResponse> batch;
+        do {
+            batch = userRepository.findResponsesAfter(afterId, Limit.of(properties.getBuildBatchSize()));
+            for (UserResponse user : batch) {
+                loaded.put(user.getId(), user.getName());
+                for (String word : words(user.getName())) {
+                    entries.add(new Entry(word, user.getId()));
+                }
+                afterId = user.getId();
+            }
+        } while (batch.size() == properties.getBuildBatchSize());
+        entries.sort(ORDER);
+        return new Built(toSnapshot(entries), loaded);
+    }
+
+    private Built install(Built built) {
+        lock.lock();
+        try {
+            pendingRemovals.clear();
+            pendingAdds.clear();
+            dirty = false;
+            names.clear();
+            names.putAll(built.names());
+            snapshot = built.snapshot();
+            return built;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a user write once it commits; it becomes visible after the next merge
+     * @param event User change
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        UserResponse user = event.getCurrent();
+        fence.afterCommit(() -> {
+            lock.lock();
+            try {
+                pendingRemovals.add(user.getId());
+                pendingAdds.put(user.getId(), user.getName());
+                names.put(user.getId(), user.getName());
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Queue user deletes once they commit
+     * @param event Deleted user ids
+     */
+    @EventListener
+    public void onUsersDeleted(UsersDeletedEvent event) {
+        fence.afterCommit(() -> {
+            lock.lock();
+            try {
+                for (Long id : event.getUserIds()) {
+                    pendingRemovals.add(id);
+                    pendingAdds.remove(id);
+                    names.remove(id);
+                }
+                dirty = true;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Users with a name word starting with each word of the query
+     * @param query Typed text; its longest word drives the lookup, the others filter
+     * @param limit Maximum number of suggestions
+     * @return Suggestions in word order, truncated if the latency budget ran out
+     */
+    public UserTypeaheadResponse suggest(String query, int limit) {
+        long deadline = System.nanoTime() + properties.getLatencyBudget().toNanos();
+        List<String> terms = words(query);
+        if (terms.isEmpty()) {
+            return new UserTypeaheadResponse(List.of(), false);
+        }
+        String lead = terms.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        Snapshot current = snapshot;
+
+        List<UserSuggestion> suggestions = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        int scanned = 0;
+        for (int i = lowerBound(current.words(), lead);
+             i < current.words().length && current.words()[i].startsWith(lead) && suggestions.size() < limit;
+             i++) {
+            if (++scanned % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                return new UserTypeaheadResponse(suggestions, true);
+            }
+            long id = current.ids()[i];
+            if (!seen.add(id)) {
+                continue;
+            }
+            // Names change before the snapshot is merged; check the current one still matches
+            String name = names.get(id);
+            if (name != null && matchesAll(words(name), terms)) {
+                suggestions.add(new UserSuggestion(id, name));
+            }
+        }
+        return new UserTypeaheadResponse(suggestions, false);
+    }
+
+    /**
+     * Case- and accent-folded words of a text
+     * @param text Text to split, may be null
+     * @return Non-empty words in order of appearance
+     */
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded)).filter(word -> !word.isEmpty()).toList();
+    }
+
+    private static boolean matchesAll(List<String> nameWords, List<String> terms) {
+        for (String term : terms) {
+            if (nameWords.stream().noneMatch(word -> word.startsWith(term))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the snapshot without the changed ids and merge in their new words.
+     * Runs off the request path; lookups keep reading the previous snapshot until it is swapped.
+     */
+    @Scheduled(fixedDelayString = "${app.search.users.merge-interval-ms:100}")
+    public void merge() {
+        if (!dirty) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (dirty) {
+                mergePending();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void mergePending() {
+        Snapshot old = snapshot;
+        List<Entry> adds = new ArrayList<>();
+        pendingAdds.forEach((id, name) -> words(name).forEach(word -> adds.add(new Entry(word, id))));
+        adds.sort(ORDER);
+
+        int capacity = old.ids().length + adds.size();
+        String[] words = new String[capacity];
+        long[] ids = new long[capacity];
+        int n = 0;
+        int i = 0;
+        int a = 0;
+        while (i < old.ids().length || a < adds.size()) {
+            if (i < old.ids().length && pendingRemovals.contains(old.ids()[i])) {
+                i++;
+            } else if (a == adds.size() || (i < old.ids().length
+                    && compare(old.words()[i], old.ids()[i], adds.get(a)) < 0)) {
+                words[n] = old.words()[i];
+                ids[n++] = old.ids()[i++];
+            } else {
+                Entry add = adds.get(a++);
+                words[n] = add.word();
+                ids[n++] = add.id();
+            }
+        }
+        pendingRemovals.clear();
+        pendingAdds.clear();
+        snapshot = new Snapshot(Arrays.copyOf(words, n), Arrays.copyOf(ids, n));
+        dirty = false;
+    }
+
+    private static int compare(String word, long id, Entry entry) {
+        int byWord = word.compareTo(entry.word());
+        return byWord != 0 ? byWord : Long.compare(id, entry.id());
+    }
+
+    private static Snapshot toSnapshot(List<Entry> entries) {
+        String[] words = new String[entries.size()];
+        long[] ids = new long[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            words[i] = entries.get(i).word();
+            ids[i] = entries.get(i).id();
+        }
+        return new Snapshot(words, ids);
+    }
+
+    /**
+     * First index whose word is not less than the prefix
+     */
+    private static int lowerBound(String[] words, String prefix) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
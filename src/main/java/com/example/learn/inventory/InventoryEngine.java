@@ -0,0 +1,303 @@
+package com.example.learn.inventory;
+
+import com.example.learn.caches.ProductCache;
+import com.example.learn.config.InventoryProperties;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.events.ProductStockChangedEvent;
+import com.example.learn.exceptions.InsufficientStockException;
+import com.example.learn.models.InventoryCheckpoint;
+import com.example.learn.repositories.InventoryCheckpointRepository;
+import com.example.learn.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock for designated hot products (flash sales).
+ * Reservations are taken from striped counters and acknowledged once they are in the journal,
+ * so a sale never waits on a row lock in the products table. Net deltas are written back in one
+ * batch per flush interval together with the journal sequence they cover; on startup any journal
+ * entries past that checkpoint are applied before the counters are loaded.
+ * Disabled unless app.inventory.enabled is set.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryEngine {
+
+    private static final String JOURNAL = "inventory";
+    private static final String UPDATE_SQL = "UPDATE products SET quantity = quantity + ?, updated_at = ? WHERE id = ?";
+    private static final int SET_QUANTITY_ATTEMPTS = 8;
+    // Same ceiling as ProductRequest.quantity
+    private static final int MAX_QUANTITY = 999999;
+
+    private final InventoryProperties properties;
+    private final ProductRepository productRepository;
+    private final InventoryCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+    // A lock rather than a monitor: start, flush and stop write to the database while holding it,
+    // and a virtual thread blocked on JDBC inside a monitor pins its carrier (Java 21 to 23)
+    private final ReentrantLock lifecycle = new ReentrantLock();
+    private InventoryJournal journal;
+    private volatile boolean ready;
+
+    /**
+     * Apply journal entries newer than the database checkpoint, then load the hot products' stock
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        lifecycle.lock();
+        try {
+            if (properties.isEnabled() && !ready) {
+                load();
+            }
+        } finally {
+            lifecycle.unlock();
+        }
+    }
+
+    private void load() {
+        journal = new InventoryJournal(Path.of(properties.getJournalPath()), properties.isJournalSync());
+        long checkpoint = checkpointRepository.findById(JOURNAL)
+                .map(InventoryCheckpoint::getLastSequence)
+                .orElse(0L);
+        InventoryJournal.Snapshot replay = journal.replay(checkpoint);
+        if (!replay.deltas().isEmpty()) {
+            write(replay);
+            log.info("Inventory journal replayed: {} products adjusted up to sequence {}",
+                    replay.deltas().size(), replay.sequence());
+        }
+        journal.start(replay.sequence());
+
+        for (Long id : properties.getHotProductIds()) {
+            productRepository.findById(id).ifPresentOrElse(
+                    product -> stocks.put(id,
+                            new StripedStock(properties.getStripes(), product.getQuantity(), MAX_QUANTITY)),
+                    () -> log.warn("Hot product {} does not exist, serving it from the database", id));
+        }
+        ready = true;
+        log.info("Inventory engine serving {} hot products from memory", stocks.size());
+    }
+
+    /**
+     * Whether this product's stock is served from memory
+     * @param productId Product ID
+     * @return true if the product is hot and the engine is running
+     */
+    public boolean handles(Long productId) {
+        return ready && stocks.containsKey(productId);
+    }
+
+    /**
+     * Take stock if enough is available; returns once the change is durable
+     * @param productId Hot product ID
+     * @param amount Units to take
+     * @return false if fewer than amount units are available
+     */
+    public boolean reserve(Long productId, int amount) {
+        StripedStock stock = stock(productId);
+        if (!stock.tryTake(amount)) {
+            return false;
+        }
+        journal(productId, stock, -amount);
+        return true;
+    }
+
+    /**
+     * Return stock unless that would take the total above the maximum quantity
+     * @param productId Hot product ID
+     * @param amount Units to add
+     * @return false if the maximum would be exceeded
+     */
+    public boolean release(Long productId, int amount) {
+        StripedStock stock = stock(productId);
+        if (!stock.tryGive(amount)) {
+            return false;
+        }
+        journal(productId, stock, amount);
+        return true;
+    }
+
+    /**
+     * Move a hot product's stock to an absolute value, recorded as a delta like any other change.
+     * Reservations that race with this call are applied on top of the new value; when they keep
+     * moving the stock the delta was computed from, the delta is recomputed a few times.
+     * @param productId Hot product ID
+     * @param quantity New quantity, between 0 and the maximum quantity
+     * @throws InsufficientStockException if concurrent stock changes kept the delta from applying
+     */
+    public void setQuantity(Long productId, int quantity) {
+        if (quantity < 0 || quantity > MAX_QUANTITY) {
+            throw new IllegalArgumentException("Quantity out of range: " + quantity);
+        }
+        StripedStock stock = stock(productId);
+        for (int attempt = 0; attempt < SET_QUANTITY_ATTEMPTS; attempt++) {
+            long delta = quantity - stock.available();
+            if (delta == 0) {
+                return;
+            }
+            if (delta > 0 ? stock.tryGive(delta) : stock.tryTake(-delta)) {
+                journal(productId, stock, delta);
+                return;
+            }
+        }
+        throw new InsufficientStockException(String.format(
+                "Stock of product id : '%s' kept changing while setting it to %d", productId, quantity));
+    }
+
+    /**
+     * Current in-memory stock of a hot product
+     * @param productId Hot product ID
+     * @return Units available
+     */
+    public int available(Long productId) {
+        return (int) stock(productId).available();
+    }
+
+    /**
+     * Current in-memory stock of every hot product
+     * @return Units available by product id
+     */
+    public Map<Long, Long> availability() {
+        Map<Long, Long> result = new TreeMap<>();
+        stocks.forEach((id, stock) -> result.put(id, stock.available()));
+        return result;
+    }
+
+    /**
+     * Stop serving a deleted product from memory
+     * @param event Product change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getCurrent() == null && event.getPrevious() != null) {
+            stocks.remove(event.getPrevious().getId());
+        }
+    }
+
+    /**
+     * Write the net deltas made durable since the last flush, and the sequence they cover,
+     * in one transaction. On failure the deltas go back to the journal for the next attempt.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:1000}")
+    public void flush() {
+        lifecycle.lock();
+        try {
+            if (ready) {
+                flushDurable();
+            }
+        } finally {
+            lifecycle.unlock();
+        }
+    }
+
+    private void flushDurable() {
+        InventoryJournal.Snapshot snapshot = journal.drain();
+        if (snapshot.deltas().isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities;
+        try {
+            quantities = write(snapshot);
+        } catch (DataAccessException ex) {
+            log.warn("Inventory flush of {} products failed, retrying next interval", snapshot.deltas().size(), ex);
+            journal.restore(snapshot.deltas());
+            return;
+        }
+        journal.checkpointed(snapshot.sequence());
+        snapshot.deltas().forEach((id, delta) -> {
+            productCache.evict(id);
+            // The quantity read back in the flush transaction, so only a real zero crossing counts
+            eventPublisher.publishEvent(new ProductStockChangedEvent(id, delta.intValue(), quantities.get(id)));
+        });
+        log.debug("Inventory flushed {} products up to sequence {}", snapshot.deltas().size(), snapshot.sequence());
+    }
+
+    /**
+     * Finish pending journal writes and flush them before the datasource goes away
+     */
+    @PreDestroy
+    public void stop() {
+        lifecycle.lock();
+        try {
+            if (ready) {
+                journal.stop();
+                flushDurable();
+                ready = false;
+            }
+        } finally {
+            lifecycle.unlock();
+        }
+    }
+
+    /**
+     * Apply the deltas and record the sequence they cover in one transaction
+     * @return Stored quantity of each written product after the deltas, read in the same transaction
+     */
+    private Map<Long, Integer> write(InventoryJournal.Snapshot snapshot) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Long, Long>> rows = new ArrayList<>(snapshot.deltas().entrySet());
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (statement, row) -> {
+                statement.setLong(1, row.getValue());
+                statement.setTimestamp(2, now);
+                statement.setLong(3, row.getKey());
+            });
+            checkpointRepository.save(new InventoryCheckpoint(JOURNAL, snapshot.sequence()));
+            Map<Long, Integer> quantities = new HashMap<>();
+            productRepository.findResponsesByIdIn(snapshot.deltas().keySet())
+                    .forEach(product -> quantities.put(product.getId(), product.getQuantity()));
+            return quantities;
+        });
+    }
+
+    private StripedStock stock(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        if (stock == null) {
+            throw new IllegalStateException("Product " + productId + " is not served by the inventory engine");
+        }
+        return stock;
+    }
+
+    /**
+     * Wait for the change to be durable; undo the in-memory change if the journal could not take it.
+     * The undo is unconditional: other reservations may already have taken what a release gave,
+     * and a conditional take-back would then leave memory ahead of the journal.
+     */
+    private void journal(Long productId, StripedStock stock, long delta) {
+        try {
+            journal.append(productId, delta).join();
+        } catch (CompletionException ex) {
+            stock.adjust(-delta);
+            log.error("Inventory journal rejected a delta of {} for product {}, undone in memory",
+                    delta, productId, ex.getCause());
+            throw new IllegalStateException("Inventory journal unavailable", ex.getCause());
+        }
+    }
+}
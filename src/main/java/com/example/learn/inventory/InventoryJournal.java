@@ -0,0 +1,351 @@
+package com.example.learn.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of acknowledged stock changes.
+ * A single writer thread drains every pending change, writes them as one block and forces it
+ * to disk once (group commit), then completes the callers. It also sums the durable deltas per
+ * product so a flush takes exactly the changes up to a known sequence number. Once a flush is
+ * checkpointed the entries it covered are cut from the head of the file, so the journal holds only
+ * what the database has not seen yet however long writes keep coming.
+ */
+@Slf4j
+class InventoryJournal {
+
+    /** sequence, product id, delta, crc32 */
+    static final int RECORD_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int MAX_GROUP = 1024;
+
+    private final Path path;
+    private final boolean sync;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean running;
+    // Offset of the first byte still in the file, counted since start; only touched by the writer thread
+    private long fileBase;
+
+    // Written by the writer thread, read and reset by the flush, all under this monitor
+    private long sequence;
+    private long durableSequence;
+    private long durableOffset;
+    private long drainedSequence;
+    private long drainedOffset;
+    private long compactTo = -1;
+    private Map<Long, Long> durableDeltas = new HashMap<>();
+
+    private record Pending(long productId, long delta, CompletableFuture<Long> done) {
+    }
+
+    /**
+     * Net stock deltas per product covering every journal entry up to and including a sequence
+     */
+    record Snapshot(Map<Long, Long> deltas, long sequence) {
+    }
+
+    InventoryJournal(Path path, boolean sync) {
+        this.path = path;
+        this.sync = sync;
+    }
+
+    /**
+     * Read the entries written after a checkpoint.
+     * A torn or corrupt record at the tail is where the last crash hit; it was never acknowledged.
+     * @param checkpoint Last sequence already applied to the database
+     * @return Deltas of the entries newer than the checkpoint and the highest sequence seen
+     */
+    Snapshot replay(long checkpoint) {
+        Map<Long, Long> deltas = new HashMap<>();
+        long last = checkpoint;
+        if (!Files.exists(path)) {
+            return new Snapshot(deltas, last);
+        }
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            while (in.read(record.clear()) == RECORD_SIZE) {
+                record.flip();
+                long seq = record.getLong();
+                long productId = record.getLong();
+                int delta = record.getInt();
+                int crc = record.getInt();
+                if (crc != checksum(seq, productId, delta)) {
+                    log.warn("Inventory journal {} has a corrupt record after sequence {}, ignoring the rest",
+                            path, last);
+                    break;
+                }
+                if (seq > checkpoint) {
+                    deltas.merge(productId, (long) delta, Long::sum);
+                }
+                last = Math.max(last, seq);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new Snapshot(deltas, last);
+    }
+
+    /**
+     * Truncate the journal and start appending after the given sequence.
+     * Only call once everything in the current file has been applied to the database.
+     * @param lastSequence Highest sequence already used
+     */
+    synchronized void start(long lastSequence) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        sequence = lastSequence;
+        durableSequence = lastSequence;
+        durableOffset = 0;
+        drainedSequence = lastSequence;
+        drainedOffset = 0;
+        compactTo = -1;
+        fileBase = 0;
+        running = true;
+        writer = new Thread(this::writeLoop, "inventory-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a change and return once it is durable
+     * @param productId Product ID
+     * @param delta Signed stock change
+     * @return Future completed with the sequence number, or exceptionally if the write failed
+     */
+    CompletableFuture<Long> append(long productId, long delta) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        if (!running) {
+            done.completeExceptionally(new IllegalStateException("Inventory journal is not running"));
+            return done;
+        }
+        queue.add(new Pending(productId, delta, done));
+        return done;
+    }
+
+    /**
+     * Take the durable deltas accumulated since the previous call
+     * @return Snapshot whose deltas cover every entry up to its sequence
+     */
+    synchronized Snapshot drain() {
+        Snapshot snapshot = new Snapshot(durableDeltas, durableSequence);
+        durableDeltas = new HashMap<>();
+        drainedSequence = durableSequence;
+        drainedOffset = durableOffset;
+        return snapshot;
+    }
+
+    /**
+     * Put back deltas whose flush failed; the next drain reports them with a later sequence
+     * @param deltas Deltas from a failed flush
+     */
+    synchronized void restore(Map<Long, Long> deltas) {
+        deltas.forEach((productId, delta) -> durableDeltas.merge(productId, delta, Long::sum));
+    }
+
+    /**
+     * Entries up to this sequence are in the database; the writer cuts them from the file before its next block
+     * @param checkpoint Sequence recorded in the database, as reported by the last drain
+     */
+    synchronized void checkpointed(long checkpoint) {
+        if (checkpoint == drainedSequence) {
+            compactTo = drainedOffset;
+        }
+    }
+
+    /**
+     * Write what is already queued, then close the file
+     */
+    void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(5000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException ex) {
+            log.warn("Could not close inventory journal {}", path, ex);
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> group = new ArrayList<>(MAX_GROUP);
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_GROUP * RECORD_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                // Poll rather than rely on interrupts: interrupting a FileChannel operation closes the channel
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(group, MAX_GROUP - 1);
+            write(group, buffer);
+            group.clear();
+        }
+    }
+
+    private void write(List<Pending> group, ByteBuffer buffer) {
+        long first;
+        synchronized (this) {
+            first = sequence + 1;
+            sequence += group.size();
+        }
+        buffer.clear();
+        long seq = first;
+        for (Pending pending : group) {
+            int delta = (int) pending.delta();
+            buffer.putLong(seq).putLong(pending.productId()).putInt(delta)
+                    .putInt(checksum(seq, pending.productId(), delta));
+            seq++;
+        }
+        buffer.flip();
+        compactIfCheckpointed();
+        long start = -1;
+        try {
+            start = channel.position();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            log.error("Inventory journal write failed for {} changes", group.size(), ex);
+            rewind(start);
+            group.forEach(pending -> pending.done().completeExceptionally(new UncheckedIOException(ex)));
+            return;
+        }
+        synchronized (this) {
+            for (Pending pending : group) {
+                durableDeltas.merge(pending.productId(), pending.delta(), Long::sum);
+            }
+            durableSequence = first + group.size() - 1;
+            durableOffset = fileBase + start + buffer.limit();
+        }
+        seq = first;
+        for (Pending pending : group) {
+            pending.done().complete(seq++);
+        }
+    }
+
+    /**
+     * Drop the checkpointed head of the file. The entries after it are copied to a new file that
+     * replaces the journal in one rename, so a crash leaves either the old file or the new one.
+     */
+    private void compactIfCheckpointed() {
+        long upTo;
+        synchronized (this) {
+            if (compactTo < 0) {
+                return;
+            }
+            upTo = compactTo;
+            compactTo = -1;
+        }
+        try {
+            long from = upTo - fileBase;
+            long end = channel.position();
+            if (from <= 0) {
+                return;
+            }
+            if (from == end) {
+                channel.truncate(0);
+                channel.position(0);
+                fileBase = upTo;
+                return;
+            }
+            Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (long at = from; at < end; ) {
+                    at += channel.transferTo(at, end - at, out);
+                }
+                if (sync) {
+                    out.force(false);
+                }
+            }
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileBase = upTo;
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(end - from);
+        } catch (IOException ex) {
+            log.warn("Could not compact inventory journal {}, keeping the checkpointed entries", path, ex);
+            reopen();
+        }
+    }
+
+    /**
+     * Get the writer back onto whichever file a failed compaction left in place
+     */
+    private void reopen() {
+        if (channel.isOpen()) {
+            return;
+        }
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } catch (IOException ex) {
+            log.error("Could not reopen inventory journal {}; stopping it", path, ex);
+            running = false;
+        }
+    }
+
+    /**
+     * Drop a partially written block so later records stay aligned
+     */
+    private void rewind(long start) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException ex) {
+            log.error("Could not rewind inventory journal {}; stopping it", path, ex);
+            running = false;
+        }
+    }
+
+    private static int checksum(long seq, long productId, int delta) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES + Long.BYTES + Integer.BYTES)
+                .putLong(seq).putLong(productId).putInt(delta).flip());
+        return (int) crc.getValue();
+    }
+}
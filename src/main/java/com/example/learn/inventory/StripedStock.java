@@ -0,0 +1,106 @@
+package com.example.learn.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock of one product split across independent counters.
+ * Each caller starts at a random stripe and only spills over to the others when its stripe
+ * runs dry, so concurrent reservations rarely CAS the same word.
+ * The room left under the ceiling is striped the same way: a give first takes headroom and a
+ * take hands it back, so stock plus headroom never exceeds the ceiling and concurrent gives
+ * cannot push the stock above it.
+ */
+class StripedStock {
+
+    private final AtomicLongArray stock;
+    private final AtomicLongArray headroom;
+
+    StripedStock(int stripeCount, long quantity, long ceiling) {
+        this.stock = spread(stripeCount, quantity);
+        this.headroom = spread(stripeCount, Math.max(0, ceiling - quantity));
+    }
+
+    /**
+     * Take amount units, or nothing if fewer are available.
+     * A failed attempt hands back what it took, so a racing reservation may briefly see less stock.
+     */
+    boolean tryTake(long amount) {
+        if (!take(stock, amount)) {
+            return false;
+        }
+        add(headroom, amount);
+        return true;
+    }
+
+    /**
+     * Give amount units, or nothing if that would take the stock above the ceiling
+     */
+    boolean tryGive(long amount) {
+        if (!take(headroom, amount)) {
+            return false;
+        }
+        add(stock, amount);
+        return true;
+    }
+
+    /**
+     * Move the stock by a signed amount regardless of floor and ceiling; used to undo a change
+     * that has already been applied. A stripe may go negative until later changes refill it.
+     */
+    void adjust(long delta) {
+        // Headroom first, so a racing give never sees the room the undone change is taking back
+        add(headroom, -delta);
+        add(stock, delta);
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < stock.length(); i++) {
+            sum += stock.get(i);
+        }
+        return sum;
+    }
+
+    private static AtomicLongArray spread(int stripeCount, long quantity) {
+        AtomicLongArray stripes = new AtomicLongArray(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.set(i, quantity / stripeCount + (i < quantity % stripeCount ? 1 : 0));
+        }
+        return stripes;
+    }
+
+    private static boolean take(AtomicLongArray stripes, long amount) {
+        int count = stripes.length();
+        int start = ThreadLocalRandom.current().nextInt(count);
+        long[] taken = new long[count];
+        long remaining = amount;
+        for (int i = 0; i < count && remaining > 0; i++) {
+            int stripe = (start + i) % count;
+            while (remaining > 0) {
+                long current = stripes.get(stripe);
+                long take = Math.min(current, remaining);
+                if (take <= 0) {
+                    break;
+                }
+                if (stripes.compareAndSet(stripe, current, current - take)) {
+                    taken[stripe] += take;
+                    remaining -= take;
+                }
+            }
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        for (int stripe = 0; stripe < count; stripe++) {
+            if (taken[stripe] > 0) {
+                stripes.addAndGet(stripe, taken[stripe]);
+            }
+        }
+        return false;
+    }
+
+    private static void add(AtomicLongArray stripes, long amount) {
+        stripes.addAndGet(ThreadLocalRandom.current().nextInt(stripes.length()), amount);
+    }
+}
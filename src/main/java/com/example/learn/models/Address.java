@@ -38,9 +38,20 @@ public class Address {
     @Column(length = 50)
     private String addressType; // HOME, WORK, BILLING, SHIPPING
 
-    @Column
+    // At most one per user, enforced by the uk_addresses_default_owner constraint
+    @Column(nullable = false)
     private Boolean isDefault = false;
 
+    // Upper-cased copies generated by the database so case-insensitive lookups can use an index
+    @Column(name = "city_key", insertable = false, updatable = false)
+    private String cityKey;
+
+    @Column(name = "state_key", insertable = false, updatable = false)
+    private String stateKey;
+
+    @Column(name = "country_key", insertable = false, updatable = false)
+    private String countryKey;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
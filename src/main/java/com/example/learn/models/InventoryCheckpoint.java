@@ -0,0 +1,28 @@
+package com.example.learn.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last inventory journal sequence whose stock delta has been written to the products table.
+ * Updated in the same transaction as the deltas, so replay on startup never applies an entry twice.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "inventory_checkpoints")
+public class InventoryCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String journal;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
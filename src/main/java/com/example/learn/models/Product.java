@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -14,9 +15,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+// Write only the changed columns, so saving an edit does not put back a quantity that an
+// in-place stock UPDATE has moved since the row was read
+@DynamicUpdate
 @Table(name = "products", indexes = {
     @Index(name = "idx_product_name", columnList = "name"),
-    @Index(name = "idx_product_category", columnList = "category")
+    @Index(name = "idx_product_category", columnList = "category"),
+    @Index(name = "idx_product_sku", columnList = "sku")
 })
 public class Product {
 
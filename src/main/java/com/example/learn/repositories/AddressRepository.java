@@ -1,33 +1,114 @@
 package com.example.learn.repositories;
 
+import com.example.learn.dto.AddressGeoCount;
+import com.example.learn.dto.AddressResponse;
 import com.example.learn.models.Address;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AddressRepository extends JpaRepository<Address, Long> {
+public interface AddressRepository extends JpaRepository<Address, Long>, AddressRepositoryCustom {
 
-    List<Address> findByUserId(Long userId);
+    String SELECT_RESPONSE = "SELECT new com.example.learn.dto.AddressResponse(a.id, u.id, u.name, a.street, a.city, "
+            + "a.state, a.zipCode, a.country, a.addressType, a.isDefault, a.createdAt, a.updatedAt) "
+            + "FROM Address a JOIN a.user u ";
 
-    List<Address> findByUserIdAndAddressType(Long userId, String addressType);
+    @EntityGraph(attributePaths = "user")
+    Optional<Address> findWithUserById(Long id);
 
-    Optional<Address> findByUserIdAndIsDefaultTrue(Long userId);
+    @Query(SELECT_RESPONSE + "WHERE a.id = :id")
+    Optional<AddressResponse> findResponseById(@Param("id") Long id);
 
-    @Query("SELECT a FROM Address a WHERE a.user.id = :userId AND a.id = :addressId")
-    Optional<Address> findByUserIdAndAddressId(Long userId, Long addressId);
+    @Query(SELECT_RESPONSE + "WHERE u.id = :userId AND a.isDefault = true")
+    Optional<AddressResponse> findDefaultResponseByUserId(@Param("userId") Long userId);
 
-    List<Address> findByCityIgnoreCase(String city);
+    @Query(SELECT_RESPONSE + "WHERE a.id > :afterId ORDER BY a.id")
+    List<AddressResponse> findResponsesAfter(@Param("afterId") Long afterId, Limit limit);
 
-    List<Address> findByStateIgnoreCase(String state);
+    @Query(SELECT_RESPONSE + "WHERE u.id = :userId AND a.id > :afterId ORDER BY a.id")
+    List<AddressResponse> findResponsesByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId,
+                                                     Limit limit);
 
-    List<Address> findByCountryIgnoreCase(String country);
+    @Query(SELECT_RESPONSE + "WHERE u.id = :userId AND a.addressType = :addressType AND a.id > :afterId ORDER BY a.id")
+    List<AddressResponse> findResponsesByUserIdAndAddressTypeAfter(@Param("userId") Long userId,
+                                                                   @Param("addressType") String addressType,
+                                                                   @Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_RESPONSE + "WHERE a.cityKey = upper(:city) AND a.id > :afterId ORDER BY a.id")
+    List<AddressResponse> findResponsesByCityAfter(@Param("city") String city, @Param("afterId") Long afterId,
+                                                   Limit limit);
+
+    @Query(SELECT_RESPONSE + "WHERE a.stateKey = upper(:state) AND a.id > :afterId ORDER BY a.id")
+    List<AddressResponse> findResponsesByStateAfter(@Param("state") String state, @Param("afterId") Long afterId,
+                                                    Limit limit);
+
+    @Query(SELECT_RESPONSE + "WHERE a.countryKey = upper(:country) AND a.id > :afterId ORDER BY a.id")
+    List<AddressResponse> findResponsesByCountryAfter(@Param("country") String country, @Param("afterId") Long afterId,
+                                                      Limit limit);
+
+    /**
+     * Count addresses per city, keyed by the upper-cased country, state and city
+     */
+    @Query("SELECT new com.example.learn.dto.AddressGeoCount(a.countryKey, a.stateKey, a.cityKey, COUNT(a)) "
+            + "FROM Address a GROUP BY a.countryKey, a.stateKey, a.cityKey")
+    List<AddressGeoCount> countByGeography();
+
+    /**
+     * Make one address the user's default and clear the previous one in a single statement.
+     * Only the two rows that change are written; nothing is touched if the address is not the user's.
+     * @return Number of rows changed, 0 if the address does not belong to the user
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Address a SET a.isDefault = CASE WHEN a.id = :addressId THEN true ELSE false END, "
+            + "a.updatedAt = LOCAL DATETIME "
+            + "WHERE a.user.id = :userId AND (a.id = :addressId OR a.isDefault = true) "
+            + "AND EXISTS (SELECT 1 FROM Address t WHERE t.id = :addressId AND t.user.id = :userId)")
+    int switchDefault(@Param("userId") Long userId, @Param("addressId") Long addressId);
+
+    /**
+     * Clear the user's default address, if any
+     * @return Number of rows changed
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Address a SET a.isDefault = false, a.updatedAt = LOCAL DATETIME "
+            + "WHERE a.user.id = :userId AND a.isDefault = true")
+    int clearDefault(@Param("userId") Long userId);
+
+    /**
+     * Clear the default address of each of the given users, if any
+     * @return Number of rows changed
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Address a SET a.isDefault = false, a.updatedAt = LOCAL DATETIME "
+            + "WHERE a.user.id IN :userIds AND a.isDefault = true")
+    int clearDefaults(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Delete every address of a user in one statement, without loading them
+     * @return Number of rows deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Address a WHERE a.user.id = :userId")
+    int bulkDeleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Delete every address of the given users in one statement, without loading them
+     * @return Number of rows deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Address a WHERE a.user.id IN :userIds")
+    int bulkDeleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
 
     boolean existsByUserIdAndId(Long userId, Long addressId);
 
     long countByUserId(Long userId);
 }
-
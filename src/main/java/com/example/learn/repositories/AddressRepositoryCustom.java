@@ -0,0 +1,80 @@
+package com.example.learn.repositories;
+
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+
+public interface AddressRepositoryCustom {
+
+    /**
+     * Fields a sparse address listing can select, in response order.
+     * The user is only joined when userName is selected; userId is read from the foreign key.
+     */
+    Map<String, String> SPARSE_FIELDS = SparseQuery.fields(
+            "id", "a.id", "userId", "a.user.id", "userName", "a.user.name", "street", "a.street",
+            "city", "a.city", "state", "a.state", "zipCode", "a.zipCode", "country", "a.country",
+            "addressType", "a.addressType", "isDefault", "a.isDefault",
+            "createdAt", "a.createdAt", "updatedAt", "a.updatedAt");
+
+    /**
+     * Find a page of addresses reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per address, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsAfter(List<String> fields, Long afterId, Limit limit);
+
+    /**
+     * Find a page of addresses of a user reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param userId User ID
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per address, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByUserIdAfter(List<String> fields, Long userId, Long afterId, Limit limit);
+
+    /**
+     * Find a page of addresses of a user with an address type reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param userId User ID
+     * @param addressType Address type
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per address, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByUserIdAndAddressTypeAfter(List<String> fields, Long userId,
+                                                                    String addressType, Long afterId, Limit limit);
+
+    /**
+     * Find a page of addresses in a city, case-insensitively, reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param city City name
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per address, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByCityAfter(List<String> fields, String city, Long afterId, Limit limit);
+
+    /**
+     * Find a page of addresses in a state, case-insensitively, reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param state State name
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per address, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByStateAfter(List<String> fields, String state, Long afterId, Limit limit);
+
+    /**
+     * Find a page of addresses in a country, case-insensitively, reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param country Country name
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per address, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByCountryAfter(List<String> fields, String country, Long afterId, Limit limit);
+}
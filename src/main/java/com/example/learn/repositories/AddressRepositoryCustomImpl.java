@@ -0,0 +1,63 @@
+package com.example.learn.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+
+public class AddressRepositoryCustomImpl implements AddressRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(List<String> fields, Long afterId, Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Address a WHERE a.id > :afterId ORDER BY a.id", Map.of("afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByUserIdAfter(List<String> fields, Long userId, Long afterId,
+                                                             Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Address a WHERE a.user.id = :userId AND a.id > :afterId ORDER BY a.id",
+                Map.of("userId", userId, "afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByUserIdAndAddressTypeAfter(List<String> fields, Long userId,
+                                                                           String addressType, Long afterId,
+                                                                           Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Address a WHERE a.user.id = :userId AND a.addressType = :addressType AND a.id > :afterId "
+                        + "ORDER BY a.id",
+                Map.of("userId", userId, "addressType", addressType, "afterId", afterId), limit.max());
+    }
+
+    // Region filters compare the generated upper-case key columns, like the full listings, to use their indexes
+    @Override
+    public List<Map<String, Object>> findFieldsByCityAfter(List<String> fields, String city, Long afterId,
+                                                           Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Address a WHERE a.cityKey = upper(:city) AND a.id > :afterId ORDER BY a.id",
+                Map.of("city", city, "afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByStateAfter(List<String> fields, String state, Long afterId,
+                                                            Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Address a WHERE a.stateKey = upper(:state) AND a.id > :afterId ORDER BY a.id",
+                Map.of("state", state, "afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByCountryAfter(List<String> fields, String country, Long afterId,
+                                                              Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Address a WHERE a.countryKey = upper(:country) AND a.id > :afterId ORDER BY a.id",
+                Map.of("country", country, "afterId", afterId), limit.max());
+    }
+}
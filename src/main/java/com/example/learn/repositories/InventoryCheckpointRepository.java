@@ -0,0 +1,9 @@
+package com.example.learn.repositories;
+
+import com.example.learn.models.InventoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, String> {
+}
@@ -1,65 +1,85 @@
 package com.example.learn.repositories;
 
+import com.example.learn.dto.ProductResponse;
 import com.example.learn.models.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     /**
-     * Find product by name
+     * Select list building a ProductResponse straight from the row, without a managed entity
      */
-    Optional<Product> findByName(String name);
+    String SELECT_RESPONSE = "SELECT new com.example.learn.dto.ProductResponse(p.id, p.name, p.description, p.price, "
+            + "p.quantity, p.category, p.sku, p.isActive, p.createdAt, p.updatedAt) FROM Product p ";
 
     /**
-     * Find product by SKU
+     * Find product response by name
      */
-    Optional<Product> findBySku(String sku);
+    @Query(SELECT_RESPONSE + "WHERE p.name = :name")
+    Optional<ProductResponse> findResponseByName(@Param("name") String name);
 
     /**
-     * Find products by category
+     * Find product response by SKU
      */
-    List<Product> findByCategoryIgnoreCase(String category);
+    @Query(SELECT_RESPONSE + "WHERE p.sku = :sku")
+    Optional<ProductResponse> findResponseBySku(@Param("sku") String sku);
 
     /**
-     * Find all active products
+     * Find product responses by a set of ids, in no particular order
      */
-    List<Product> findByIsActiveTrue();
+    @Query(SELECT_RESPONSE + "WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
-     * Find products with quantity greater than specified value
+     * Find a page of products after the given id
      */
-    List<Product> findByQuantityGreaterThan(Integer quantity);
+    @Query(SELECT_RESPONSE + "WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findResponsesAfter(@Param("afterId") Long afterId, Limit limit);
 
     /**
-     * Find in-stock products (quantity > 0)
+     * Find a page of products by category after the given id
      */
-    @Query("SELECT p FROM Product p WHERE p.quantity > 0 AND p.isActive = true")
-    List<Product> findInStockProducts();
+    @Query(SELECT_RESPONSE + "WHERE upper(p.category) = upper(:category) AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findResponsesByCategoryAfter(@Param("category") String category,
+                                                       @Param("afterId") Long afterId, Limit limit);
 
     /**
-     * Find out-of-stock products (quantity = 0)
+     * Find a page of active products after the given id
      */
-    @Query("SELECT p FROM Product p WHERE p.quantity = 0 AND p.isActive = true")
-    List<Product> findOutOfStockProducts();
+    @Query(SELECT_RESPONSE + "WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findActiveResponsesAfter(@Param("afterId") Long afterId, Limit limit);
 
     /**
-     * Find products within price range
+     * Find products with quantity greater than specified value
      */
-    @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice AND p.isActive = true")
-    List<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
+    List<Product> findByQuantityGreaterThan(Integer quantity);
 
     /**
-     * Search products by name containing keyword
+     * Find a page of in-stock products (quantity > 0) after the given id
      */
-    List<Product> findByNameContainingIgnoreCase(String keyword);
+    @Query(SELECT_RESPONSE + "WHERE p.quantity > 0 AND p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findInStockProducts(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Find a page of out-of-stock products (quantity = 0) after the given id
+     */
+    @Query(SELECT_RESPONSE + "WHERE p.quantity = 0 AND p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findOutOfStockProducts(@Param("afterId") Long afterId, Limit limit);
 
     /**
      * Check if product exists by name
@@ -71,6 +91,36 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     boolean existsBySku(String sku);
 
+    /**
+     * Find which of the given names are already taken
+     */
+    @Query("SELECT p.name FROM Product p WHERE p.name IN :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
+    /**
+     * Find which of the given SKUs are already taken
+     */
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    Set<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    /**
+     * Find product names in name order, one keyset page at a time
+     */
+    @Query("SELECT p.name FROM Product p WHERE p.name > :after ORDER BY p.name")
+    List<String> findNamesAfter(@Param("after") String after, Limit limit);
+
+    /**
+     * Find product SKUs in SKU order, one keyset page at a time
+     */
+    @Query("SELECT p.sku FROM Product p WHERE p.sku > :after ORDER BY p.sku")
+    List<String> findSkusAfter(@Param("after") String after, Limit limit);
+
+    /**
+     * Find product responses by a set of names
+     */
+    @Query(SELECT_RESPONSE + "WHERE p.name IN :names")
+    List<ProductResponse> findResponsesByNameIn(@Param("names") Collection<String> names);
+
     /**
      * Count active products
      */
@@ -79,6 +129,38 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /**
      * Count products by category
      */
-    long countByCategory(String category);
-}
+    long countByCategoryIgnoreCase(String category);
 
+    /**
+     * Atomically take stock if enough is available
+     * @return 1 if the stock was taken, 0 if the product is missing or has fewer than amount left
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :amount, p.updatedAt = LOCAL DATETIME "
+            + "WHERE p.id = :id AND p.quantity >= :amount")
+    int decrementQuantity(@Param("id") Long id, @Param("amount") int amount);
+
+    /**
+     * Atomically return stock without exceeding the maximum quantity
+     * @return 1 if the stock was added, 0 if the product is missing or would exceed maxQuantity
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :amount, p.updatedAt = LOCAL DATETIME "
+            + "WHERE p.id = :id AND p.quantity <= :maxQuantity - :amount")
+    int incrementQuantity(@Param("id") Long id, @Param("amount") int amount, @Param("maxQuantity") int maxQuantity);
+
+    /**
+     * Read the stored quantity of one product
+     */
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :id")
+    Integer findQuantityById(@Param("id") Long id);
+
+    /**
+     * Stream all products in id order through a server-side cursor.
+     * Rows are fetched from JDBC in batches and never enter the persistence context;
+     * the caller must consume the stream inside a transaction and close it.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + "ORDER BY p.id")
+    Stream<ProductResponse> streamAllResponses();
+}
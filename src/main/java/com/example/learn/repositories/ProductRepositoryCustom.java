@@ -0,0 +1,84 @@
+package com.example.learn.repositories;
+
+import com.example.learn.dto.ProductFacetCount;
+
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Fields a sparse product listing can select, in response order
+     */
+    Map<String, String> SPARSE_FIELDS = SparseQuery.fields(
+            "id", "p.id", "name", "p.name", "description", "p.description", "price", "p.price",
+            "quantity", "p.quantity", "category", "p.category", "sku", "p.sku", "isActive", "p.isActive",
+            "createdAt", "p.createdAt", "updatedAt", "p.updatedAt");
+
+    /**
+     * Count products grouped by lower-cased category, active flag, in-stock flag and price bucket
+     * in a single aggregate query
+     * @param priceBounds Ascending upper bounds of the price buckets
+     * @return One row per non-empty combination
+     */
+    List<ProductFacetCount> countFacets(List<BigDecimal> priceBounds);
+
+    /**
+     * Find a page of products reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per product, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsAfter(List<String> fields, Long afterId, Limit limit);
+
+    /**
+     * Find a page of active products reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per product, keyed by field name
+     */
+    List<Map<String, Object>> findActiveFieldsAfter(List<String> fields, Long afterId, Limit limit);
+
+    /**
+     * Find a page of products in a category, case-insensitively, reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param category Product category
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per product, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByCategoryAfter(List<String> fields, String category, Long afterId,
+                                                        Limit limit);
+
+    /**
+     * Find a page of active in-stock products (quantity > 0) reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per product, keyed by field name
+     */
+    List<Map<String, Object>> findInStockFieldsAfter(List<String> fields, Long afterId, Limit limit);
+
+    /**
+     * Find a page of active out-of-stock products (quantity = 0) reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per product, keyed by field name
+     */
+    List<Map<String, Object>> findOutOfStockFieldsAfter(List<String> fields, Long afterId, Limit limit);
+
+    /**
+     * Find products by id reading only the selected fields, for listings ordered by an in-memory index
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param ids Product IDs, not empty
+     * @return One map per existing product in no particular order, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByIdIn(List<String> fields, Collection<Long> ids);
+}
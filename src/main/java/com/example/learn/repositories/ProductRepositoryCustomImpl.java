@@ -0,0 +1,83 @@
+package com.example.learn.repositories;
+
+import com.example.learn.dto.ProductFacetCount;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductFacetCount> countFacets(List<BigDecimal> priceBounds) {
+        // Bucket bounds come from configuration as BigDecimal, so inlining them is safe and
+        // keeps the CASE expression identical between the select list and the group by
+        StringBuilder bucket = new StringBuilder("CASE");
+        for (int i = 0; i < priceBounds.size(); i++) {
+            bucket.append(" WHEN p.price < ").append(priceBounds.get(i).toPlainString()).append(" THEN ").append(i);
+        }
+        bucket.append(" ELSE ").append(priceBounds.size()).append(" END");
+        String inStock = "CASE WHEN p.quantity > 0 THEN 1 ELSE 0 END";
+
+        String jpql = "SELECT LOWER(p.category), p.isActive, " + inStock + ", " + bucket + ", COUNT(p) "
+                + "FROM Product p "
+                + "GROUP BY LOWER(p.category), p.isActive, " + inStock + ", " + bucket;
+
+        return entityManager.createQuery(jpql, Object[].class).getResultList().stream()
+                .map(row -> new ProductFacetCount(
+                        (String) row[0],
+                        Boolean.TRUE.equals(row[1]),
+                        ((Number) row[2]).intValue() == 1,
+                        ((Number) row[3]).intValue(),
+                        ((Number) row[4]).longValue()))
+                .toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(List<String> fields, Long afterId, Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Product p WHERE p.id > :afterId ORDER BY p.id", Map.of("afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findActiveFieldsAfter(List<String> fields, Long afterId, Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Product p WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id",
+                Map.of("afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByCategoryAfter(List<String> fields, String category, Long afterId,
+                                                               Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Product p WHERE upper(p.category) = upper(:category) AND p.id > :afterId ORDER BY p.id",
+                Map.of("category", category, "afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findInStockFieldsAfter(List<String> fields, Long afterId, Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Product p WHERE p.quantity > 0 AND p.isActive = true AND p.id > :afterId ORDER BY p.id",
+                Map.of("afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findOutOfStockFieldsAfter(List<String> fields, Long afterId, Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Product p WHERE p.quantity = 0 AND p.isActive = true AND p.id > :afterId ORDER BY p.id",
+                Map.of("afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByIdIn(List<String> fields, Collection<Long> ids) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM Product p WHERE p.id IN :ids", Map.of("ids", ids), Math.max(ids.size(), 1));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.learn.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset page of a chosen subset of response fields (sparse fieldsets).
+ * Only the selected paths appear in the select list, so unselected columns are neither read
+ * nor materialised. Paths come from a fixed whitelist, never from the request, so they are
+ * inlined into the JPQL.
+ */
+final class SparseQuery {
+
+    private SparseQuery() {
+    }
+
+    /**
+     * Whitelist of response fields in response order
+     * @param pairs Field name followed by its JPQL path, repeated
+     * @return Unmodifiable map of field name to path
+     */
+    static Map<String, String> fields(String... pairs) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            fields.put(pairs[i], pairs[i + 1]);
+        }
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Run "SELECT paths FROM ... WHERE ... ORDER BY id" with the given limit
+     * @param entityManager EntityManager
+     * @param whitelist Field names to JPQL paths
+     * @param fields Selected field names, already checked against the whitelist
+     * @param fromWhere FROM and WHERE clauses including the keyset condition and ORDER BY
+     * @param parameters Named parameters of the FROM and WHERE clauses
+     * @param limit Maximum number of rows
+     * @return One map per row, keyed by field name in selection order
+     */
+    static List<Map<String, Object>> find(EntityManager entityManager, Map<String, String> whitelist,
+                                          List<String> fields, String fromWhere, Map<String, Object> parameters,
+                                          int limit) {
+        String select = fields.stream().map(whitelist::get).collect(Collectors.joining(", "));
+        TypedQuery<Tuple> query = entityManager.createQuery("SELECT " + select + " " + fromWhere, Tuple.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList().stream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 0; i < fields.size(); i++) {
+                        row.put(fields.get(i), tuple.get(i));
+                    }
+                    return row;
+                })
+                .toList();
+    }
+}
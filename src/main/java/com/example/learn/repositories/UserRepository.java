@@ -1,21 +1,58 @@
 package com.example.learn.repositories;
 
+import com.example.learn.dto.UserResponse;
 import com.example.learn.models.User;
 import com.example.learn.models.UserRole;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
-    Optional<User> findByEmail(String email);
+    String SELECT_RESPONSE = "SELECT new com.example.learn.dto.UserResponse(u.id, u.name, u.email, u.phone, u.role, "
+            + "u.createdAt, u.updatedAt) FROM User u ";
 
     boolean existsByEmail(String email);
 
-    List<User> findByRole(UserRole role);
+    @EntityGraph(attributePaths = "addresses")
+    Optional<User> findWithAddressesById(Long id);
 
-    List<User> findByNameContainingIgnoreCase(String name);
+    @Query(SELECT_RESPONSE + "WHERE u.id IN :ids")
+    List<UserResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_RESPONSE + "WHERE u.email = :email")
+    Optional<UserResponse> findResponseByEmail(@Param("email") String email);
+
+    @Query(SELECT_RESPONSE + "WHERE u.id > :afterId ORDER BY u.id")
+    List<UserResponse> findResponsesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(SELECT_RESPONSE + "WHERE u.role = :role AND u.id > :afterId ORDER BY u.id")
+    List<UserResponse> findResponsesByRoleAfter(@Param("role") UserRole role, @Param("afterId") Long afterId,
+                                                Limit limit);
+
+    @Query(SELECT_RESPONSE + "WHERE upper(u.name) LIKE upper(concat('%', :name, '%')) AND u.id > :afterId "
+            + "ORDER BY u.id")
+    List<UserResponse> findResponsesByNameContainingAfter(@Param("name") String name, @Param("afterId") Long afterId,
+                                                          Limit limit);
+
+    /**
+     * Delete users by id in one statement, without loading them or their addresses.
+     * Their addresses must already be gone.
+     * @return Number of rows deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM User u WHERE u.id IN :ids")
+    int bulkDeleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.email FROM User u WHERE u.email > :after ORDER BY u.email")
+    List<String> findEmailsAfter(@Param("after") String after, Limit limit);
 }
@@ -0,0 +1,47 @@
+package com.example.learn.repositories;
+
+import com.example.learn.models.UserRole;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Fields a sparse user listing can select, in response order
+     */
+    Map<String, String> SPARSE_FIELDS = SparseQuery.fields(
+            "id", "u.id", "name", "u.name", "email", "u.email", "phone", "u.phone", "role", "u.role",
+            "createdAt", "u.createdAt", "updatedAt", "u.updatedAt");
+
+    /**
+     * Find a page of users reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per user, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsAfter(List<String> fields, Long afterId, Limit limit);
+
+    /**
+     * Find a page of users with a role reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param role User role
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per user, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByRoleAfter(List<String> fields, UserRole role, Long afterId, Limit limit);
+
+    /**
+     * Find a page of users whose name contains a term, case-insensitively, reading only the selected fields
+     * @param fields Field names from SPARSE_FIELDS, including id
+     * @param name Search term
+     * @param afterId id of the last row of the previous page
+     * @param limit Maximum number of rows
+     * @return One map per user, keyed by field name
+     */
+    List<Map<String, Object>> findFieldsByNameContainingAfter(List<String> fields, String name, Long afterId,
+                                                              Limit limit);
+}
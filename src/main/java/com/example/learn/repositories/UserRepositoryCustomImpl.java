@@ -0,0 +1,37 @@
+package com.example.learn.repositories;
+
+import com.example.learn.models.UserRole;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(List<String> fields, Long afterId, Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM User u WHERE u.id > :afterId ORDER BY u.id", Map.of("afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByRoleAfter(List<String> fields, UserRole role, Long afterId,
+                                                           Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM User u WHERE u.role = :role AND u.id > :afterId ORDER BY u.id",
+                Map.of("role", role, "afterId", afterId), limit.max());
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByNameContainingAfter(List<String> fields, String name, Long afterId,
+                                                                     Limit limit) {
+        return SparseQuery.find(entityManager, SPARSE_FIELDS, fields,
+                "FROM User u WHERE upper(u.name) LIKE upper(concat('%', :name, '%')) AND u.id > :afterId ORDER BY u.id",
+                Map.of("name", name, "afterId", afterId), limit.max());
+    }
+}
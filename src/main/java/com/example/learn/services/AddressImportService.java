@@ -0,0 +1,252 @@
+package com.example.learn.services;
+
+import com.example.learn.config.ImportProperties;
+import com.example.learn.dto.AddressRequest;
+import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.BulkImportResponse;
+import com.example.learn.dto.UserResponse;
+import com.example.learn.events.AddressChangedEvent;
+import com.example.learn.repositories.AddressRepository;
+import com.example.learn.repositories.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk address ingestion from newline-delimited JSON, for migrations.
+ * Each chunk of lines is parsed and validated in parallel, the users it references are resolved
+ * with one IN query, and its rows are inserted grouped by user in a single JDBC batch. Rows take
+ * effect as if they had been posted one by one in file order, so the last default address of a
+ * user wins.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AddressImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO addresses "
+            + "(user_id, street, city, state, zip_code, country, address_type, is_default, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final AddressRepository addressRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImportProperties properties;
+
+    private record Line(long number, String text) {
+    }
+
+    private record Row(long line, AddressRequest request, String error) {
+    }
+
+    private record Rejection(long line, String message) {
+    }
+
+    private record Written(int created, List<Rejection> rejected) {
+    }
+
+    /**
+     * Import addresses from an NDJSON stream, one AddressRequest per line
+     * @param inputStream Request body
+     * @return Report with created and failed counts and per-line errors
+     */
+    public BulkImportResponse importAddresses(InputStream inputStream) {
+        log.debug("Importing addresses from NDJSON");
+        ObjectReader reader = objectMapper.readerFor(AddressRequest.class);
+        BulkImportResponse report = new BulkImportResponse();
+        List<Line> chunk = new ArrayList<>(properties.getBatchSize());
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.setReceived(report.getReceived() + 1);
+                chunk.add(new Line(lineNumber, line));
+                if (chunk.size() == properties.getBatchSize()) {
+                    importChunk(chunk, reader, report);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, reader, report);
+        }
+
+        log.info("Address import finished: {} received, {} created, {} failed",
+                report.getReceived(), report.getCreated(), report.getFailed());
+        return report;
+    }
+
+    private void importChunk(List<Line> chunk, ObjectReader reader, BulkImportResponse report) {
+        // Parsing and validation are CPU-bound and independent per line; the result keeps line order
+        List<Row> rows = chunk.parallelStream().map(line -> parse(line, reader)).toList();
+        List<Row> valid = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.error() != null) {
+                report.addError(row.line(), row.error(), properties.getMaxReportedErrors());
+            } else {
+                valid.add(row);
+            }
+        }
+        if (!valid.isEmpty()) {
+            writeBatch(valid, report);
+        }
+    }
+
+    private Row parse(Line line, ObjectReader reader) {
+        AddressRequest request;
+        try {
+            request = reader.readValue(line.text());
+        } catch (JacksonException ex) {
+            return new Row(line.number(), null, "Malformed JSON: " + ex.getOriginalMessage());
+        }
+        if (request == null) {
+            return new Row(line.number(), null, "Empty row");
+        }
+        Set<ConstraintViolation<AddressRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return new Row(line.number(), request, null);
+        }
+        return new Row(line.number(), request, violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; ")));
+    }
+
+    /**
+     * Write a batch in its own transaction, so a failure only affects its own rows. When the
+     * database rejects the batch, its rows are written again one at a time in file order, so only
+     * the rows that actually fail are reported, each with its own error.
+     */
+    private void writeBatch(List<Row> batch, BulkImportResponse report) {
+        int maxErrors = properties.getMaxReportedErrors();
+        Written written;
+        try {
+            written = transactionTemplate.execute(status -> insert(batch));
+        } catch (DataAccessException ex) {
+            if (batch.size() > 1) {
+                log.warn("Address import batch starting at line {} failed, retrying its rows one at a time",
+                        batch.get(0).line(), ex);
+                batch.forEach(row -> writeBatch(List.of(row), report));
+            } else {
+                report.addError(batch.get(0).line(), "Insert failed: " + ex.getMostSpecificCause().getMessage(),
+                        maxErrors);
+            }
+            return;
+        }
+        // Rejections are reported only once their batch commits, so a retried row is reported once
+        written.rejected().forEach(rejection -> report.addError(rejection.line(), rejection.message(), maxErrors));
+        report.setCreated(report.getCreated() + written.created());
+    }
+
+    /**
+     * Resolve the users with one IN query, clear the defaults being replaced with one UPDATE, then
+     * insert the rows grouped by user in a single JDBC batch
+     */
+    private Written insert(List<Row> batch) {
+        Map<Long, UserResponse> users = userRepository.findResponsesByIdIn(
+                        batch.stream().map(row -> row.request().getUserId()).distinct().toList()).stream()
+                .collect(Collectors.toMap(UserResponse::getId, Function.identity()));
+
+        List<Rejection> rejected = new ArrayList<>();
+        Map<Long, List<Row>> byUser = new LinkedHashMap<>();
+        Map<Long, Row> defaults = new HashMap<>();
+        for (Row row : batch) {
+            Long userId = row.request().getUserId();
+            if (!users.containsKey(userId)) {
+                rejected.add(new Rejection(row.line(), String.format("User not found with id : '%s'", userId)));
+                continue;
+            }
+            byUser.computeIfAbsent(userId, key -> new ArrayList<>()).add(row);
+            if (Boolean.TRUE.equals(row.request().getIsDefault())) {
+                defaults.put(userId, row);
+            }
+        }
+        List<Row> ordered = byUser.values().stream().flatMap(List::stream).toList();
+        if (ordered.isEmpty()) {
+            return new Written(0, rejected);
+        }
+        if (!defaults.isEmpty()) {
+            addressRepository.clearDefaults(defaults.keySet());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Row row = ordered.get(i);
+                        AddressRequest request = row.request();
+                        statement.setLong(1, request.getUserId());
+                        statement.setString(2, request.getStreet());
+                        statement.setString(3, request.getCity());
+                        statement.setString(4, request.getState());
+                        statement.setString(5, request.getZipCode());
+                        statement.setString(6, request.getCountry());
+                        statement.setString(7, request.getAddressType());
+                        statement.setBoolean(8, defaults.get(request.getUserId()) == row);
+                        statement.setTimestamp(9, Timestamp.valueOf(now));
+                        statement.setTimestamp(10, Timestamp.valueOf(now));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return ordered.size();
+                    }
+                }, keys);
+
+        // Generated ids come back in insert order, so in-memory views learn about the rows without a reload
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < ordered.size(); i++) {
+            AddressRequest request = ordered.get(i).request();
+            Long id = ((Number) generated.get(i).values().iterator().next()).longValue();
+            eventPublisher.publishEvent(AddressChangedEvent.created(new AddressResponse(id,
+                    request.getUserId(), users.get(request.getUserId()).getName(), request.getStreet(),
+                    request.getCity(), request.getState(), request.getZipCode(), request.getCountry(),
+                    request.getAddressType(), defaults.get(request.getUserId()) == ordered.get(i), now, now)));
+        }
+        return new Written(ordered.size(), rejected);
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.learn.services;
 
 import com.example.learn.dto.AddressRequest;
+import com.example.learn.config.RollupProperties;
 import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.AddressRollupResponse;
+import com.example.learn.dto.BulkDeleteResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.events.AddressChangedEvent;
+import com.example.learn.events.AddressesPurgedEvent;
+import com.example.learn.exceptions.BadRequestException;
 import com.example.learn.exceptions.ResourceNotFoundException;
+import com.example.learn.indexes.AddressGeoCounters;
 import com.example.learn.mappers.AddressMapper;
 import com.example.learn.models.Address;
 import com.example.learn.models.User;
 import com.example.learn.repositories.AddressRepository;
+import com.example.learn.repositories.AddressRepositoryCustom;
 import com.example.learn.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -25,16 +39,39 @@ public class AddressService {
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
     private final AddressMapper addressMapper;
+    private final CursorPaginator cursorPaginator;
+    private final AddressGeoCounters addressGeoCounters;
+    private final RollupProperties rollupProperties;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Get all addresses
-     * @return List of AddressResponse
+     * Get a page of addresses
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of AddressResponse
      */
-    public List<AddressResponse> findAll() {
-        log.debug("Fetching all addresses");
-        return addressRepository.findAll().stream()
-                .map(addressMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AddressResponse> findAll(String cursor, Integer size) {
+        log.debug("Fetching addresses after cursor: {}", cursor);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<AddressResponse> addresses = addressRepository.findResponsesAfter(
+                cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(addresses, pageSize, AddressResponse::getId, Function.identity());
+    }
+
+    /**
+     * Get a page of addresses, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findAllFields(String fields, String cursor, Integer size) {
+        log.debug("Fetching address fields {} after cursor: {}", fields, cursor);
+        List<String> selected = Fieldsets.parse(fields, AddressRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = addressRepository.findFieldsAfter(
+                selected, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
     }
 
     /**
@@ -45,38 +82,85 @@ public class AddressService {
      */
     public AddressResponse findById(Long id) {
         log.debug("Fetching address with id: {}", id);
-        Address address = addressRepository.findById(id)
+        return addressRepository.findResponseById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "id", id));
-        return addressMapper.toResponse(address);
     }
 
     /**
-     * Get all addresses for a specific user
+     * Get a page of addresses for a specific user
      * @param userId User ID
-     * @return List of AddressResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of AddressResponse
      */
-    public List<AddressResponse> findByUserId(Long userId) {
+    public CursorPage<AddressResponse> findByUserId(Long userId, String cursor, Integer size) {
         log.debug("Fetching addresses for user id: {}", userId);
         // Verify user exists
         if (!userRepository.existsById(userId)) {
             throw new ResourceNotFoundException("User", "id", userId);
         }
-        return addressRepository.findByUserId(userId).stream()
-                .map(addressMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<AddressResponse> addresses = addressRepository.findResponsesByUserIdAfter(
+                userId, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(addresses, pageSize, AddressResponse::getId, Function.identity());
+    }
+
+    /**
+     * Get a page of addresses for a specific user, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param userId User ID
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findFieldsByUserId(String fields, Long userId, String cursor,
+                                                              Integer size) {
+        log.debug("Fetching address fields {} for user id: {}", fields, userId);
+        List<String> selected = Fieldsets.parse(fields, AddressRepositoryCustom.SPARSE_FIELDS);
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = addressRepository.findFieldsByUserIdAfter(
+                selected, userId, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
     }
 
     /**
-     * Get addresses by user ID and address type
+     * Get a page of addresses by user ID and address type
      * @param userId User ID
      * @param addressType Address type
-     * @return List of AddressResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of AddressResponse
      */
-    public List<AddressResponse> findByUserIdAndAddressType(Long userId, String addressType) {
+    public CursorPage<AddressResponse> findByUserIdAndAddressType(Long userId, String addressType,
+                                                                  String cursor, Integer size) {
         log.debug("Fetching addresses for user id: {} with type: {}", userId, addressType);
-        return addressRepository.findByUserIdAndAddressType(userId, addressType).stream()
-                .map(addressMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<AddressResponse> addresses = addressRepository.findResponsesByUserIdAndAddressTypeAfter(
+                userId, addressType, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(addresses, pageSize, AddressResponse::getId, Function.identity());
+    }
+
+    /**
+     * Get a page of addresses by user ID and address type, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param userId User ID
+     * @param addressType Address type
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findFieldsByUserIdAndAddressType(String fields, Long userId,
+                                                                            String addressType, String cursor,
+                                                                            Integer size) {
+        log.debug("Fetching address fields {} for user id: {} with type: {}", fields, userId, addressType);
+        List<String> selected = Fieldsets.parse(fields, AddressRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = addressRepository.findFieldsByUserIdAndAddressTypeAfter(
+                selected, userId, addressType, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
     }
 
     /**
@@ -87,45 +171,105 @@ public class AddressService {
      */
     public AddressResponse findDefaultAddressByUserId(Long userId) {
         log.debug("Fetching default address for user id: {}", userId);
-        Address address = addressRepository.findByUserIdAndIsDefaultTrue(userId)
+        return addressRepository.findDefaultResponseByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Default Address for User", "userId", userId));
-        return addressMapper.toResponse(address);
     }
 
     /**
-     * Get addresses by city
+     * Get a page of addresses by city
      * @param city City name
-     * @return List of AddressResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of AddressResponse
      */
-    public List<AddressResponse> findByCity(String city) {
+    public CursorPage<AddressResponse> findByCity(String city, String cursor, Integer size) {
         log.debug("Fetching addresses in city: {}", city);
-        return addressRepository.findByCityIgnoreCase(city).stream()
-                .map(addressMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<AddressResponse> addresses = addressRepository.findResponsesByCityAfter(
+                city, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(addresses, pageSize, AddressResponse::getId, Function.identity());
+    }
+
+    /**
+     * Get a page of addresses by city, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param city City name
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findFieldsByCity(String fields, String city, String cursor, Integer size) {
+        log.debug("Fetching address fields {} in city: {}", fields, city);
+        List<String> selected = Fieldsets.parse(fields, AddressRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = addressRepository.findFieldsByCityAfter(
+                selected, city, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
     }
 
     /**
-     * Get addresses by state
+     * Get a page of addresses by state
      * @param state State name
-     * @return List of AddressResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of AddressResponse
      */
-    public List<AddressResponse> findByState(String state) {
+    public CursorPage<AddressResponse> findByState(String state, String cursor, Integer size) {
         log.debug("Fetching addresses in state: {}", state);
-        return addressRepository.findByStateIgnoreCase(state).stream()
-                .map(addressMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<AddressResponse> addresses = addressRepository.findResponsesByStateAfter(
+                state, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(addresses, pageSize, AddressResponse::getId, Function.identity());
+    }
+
+    /**
+     * Get a page of addresses by state, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param state State name
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findFieldsByState(String fields, String state, String cursor, Integer size) {
+        log.debug("Fetching address fields {} in state: {}", fields, state);
+        List<String> selected = Fieldsets.parse(fields, AddressRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = addressRepository.findFieldsByStateAfter(
+                selected, state, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
     }
 
     /**
-     * Get addresses by country
+     * Get a page of addresses by country
      * @param country Country name
-     * @return List of AddressResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of AddressResponse
      */
-    public List<AddressResponse> findByCountry(String country) {
+    public CursorPage<AddressResponse> findByCountry(String country, String cursor, Integer size) {
         log.debug("Fetching addresses in country: {}", country);
-        return addressRepository.findByCountryIgnoreCase(country).stream()
-                .map(addressMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<AddressResponse> addresses = addressRepository.findResponsesByCountryAfter(
+                country, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(addresses, pageSize, AddressResponse::getId, Function.identity());
+    }
+
+    /**
+     * Get a page of addresses by country, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param country Country name
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findFieldsByCountry(String fields, String country, String cursor,
+                                                               Integer size) {
+        log.debug("Fetching address fields {} in country: {}", fields, country);
+        List<String> selected = Fieldsets.parse(fields, AddressRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = addressRepository.findFieldsByCountryAfter(
+                selected, country, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
     }
 
     /**
@@ -153,7 +297,9 @@ public class AddressService {
         Address savedAddress = addressRepository.save(address);
         log.info("Address created successfully with id: {}", savedAddress.getId());
 
-        return addressMapper.toResponse(savedAddress);
+        AddressResponse response = addressMapper.toResponse(savedAddress);
+        eventPublisher.publishEvent(AddressChangedEvent.created(response));
+        return response;
     }
 
     /**
@@ -167,7 +313,8 @@ public class AddressService {
     public AddressResponse updateAddress(Long id, AddressRequest addressRequest) {
         log.debug("Updating address with id: {}", id);
 
-        Address existingAddress = addressRepository.findById(id)
+        // The response needs the user's name, so load it with the address
+        Address existingAddress = addressRepository.findWithUserById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "id", id));
 
         // If this address is marked as default, unset other default addresses for this user
@@ -175,35 +322,34 @@ public class AddressService {
             unsetDefaultAddress(existingAddress.getUser().getId());
         }
 
+        AddressResponse previous = addressMapper.toResponse(existingAddress);
         addressMapper.updateEntityFromRequest(addressRequest, existingAddress);
         Address updatedAddress = addressRepository.save(existingAddress);
         log.info("Address updated successfully with id: {}", updatedAddress.getId());
 
-        return addressMapper.toResponse(updatedAddress);
+        AddressResponse response = addressMapper.toResponse(updatedAddress);
+        eventPublisher.publishEvent(AddressChangedEvent.updated(previous, response));
+        return response;
     }
 
     /**
-     * Set an address as default for a user
+     * Set an address as default for a user with one set-based UPDATE
      * @param id Address ID
      * @param userId User ID
      * @return Updated AddressResponse
-     * @throws ResourceNotFoundException if address not found
+     * @throws ResourceNotFoundException if the address does not exist for that user
      */
     @Transactional
     public AddressResponse setDefaultAddress(Long id, Long userId) {
         log.debug("Setting address id: {} as default for user id: {}", id, userId);
 
-        Address address = addressRepository.findByUserIdAndAddressId(userId, id)
-                .orElseThrow(() -> new ResourceNotFoundException("Address", "id", id));
-
-        // Unset other default addresses for this user
-        unsetDefaultAddress(userId);
-
-        address.setIsDefault(true);
-        Address updatedAddress = addressRepository.save(address);
+        if (addressRepository.switchDefault(userId, id) == 0) {
+            throw new ResourceNotFoundException("Address", "id", id);
+        }
         log.info("Address id: {} set as default for user id: {}", id, userId);
 
-        return addressMapper.toResponse(updatedAddress);
+        return addressRepository.findResponseById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Address", "id", id));
     }
 
     /**
@@ -215,23 +361,68 @@ public class AddressService {
     public void deleteAddress(Long id) {
         log.debug("Deleting address with id: {}", id);
 
-        Address address = addressRepository.findById(id)
+        Address address = addressRepository.findWithUserById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "id", id));
 
         addressRepository.delete(address);
         log.info("Address deleted successfully with id: {}", id);
+        eventPublisher.publishEvent(AddressChangedEvent.deleted(addressMapper.toResponse(address)));
     }
 
     /**
-     * Delete all addresses for a user
+     * Delete all addresses for a user in one statement
      * @param userId User ID
      */
     @Transactional
     public void deleteAllAddressesByUserId(Long userId) {
         log.debug("Deleting all addresses for user id: {}", userId);
-        List<Address> addresses = addressRepository.findByUserId(userId);
-        addressRepository.deleteAll(addresses);
-        log.info("All addresses deleted for user id: {}", userId);
+        int deleted = addressRepository.bulkDeleteByUserId(userId);
+        log.info("All addresses deleted for user id: {} ({} rows)", userId, deleted);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new AddressesPurgedEvent(List.of(userId), deleted));
+        }
+    }
+
+    /**
+     * Delete all addresses for several users, one statement per chunk of ids
+     * @param userIds User IDs
+     * @return Number of addresses deleted
+     * @throws BadRequestException if no ids are given
+     */
+    @Transactional
+    public BulkDeleteResponse deleteAllAddressesByUserIds(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new BadRequestException("userIds", userIds);
+        }
+        log.debug("Deleting all addresses for {} users", userIds.size());
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(userIds));
+        int deleted = 0;
+        for (int from = 0; from < distinct.size(); from += UserService.DELETE_CHUNK_SIZE) {
+            deleted += addressRepository.bulkDeleteByUserIdIn(
+                    distinct.subList(from, Math.min(from + UserService.DELETE_CHUNK_SIZE, distinct.size())));
+        }
+        log.info("All addresses deleted for {} users ({} rows)", distinct.size(), deleted);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new AddressesPurgedEvent(distinct, deleted));
+        }
+        return new BulkDeleteResponse(0, deleted);
+    }
+
+    /**
+     * Get address counts by country, state and city
+     * @param country Country to narrow to, null for every country
+     * @param state State within the country to narrow to, null for every state
+     * @return AddressRollupResponse of the requested region
+     * @throws BadRequestException if a state is given without a country
+     */
+    public AddressRollupResponse rollup(String country, String state) {
+        log.debug("Fetching address rollup for country: {}, state: {}", country, state);
+        if (state != null && country == null) {
+            throw new BadRequestException("A state rollup needs a country");
+        }
+        return rollupProperties.isInMemory()
+                ? addressGeoCounters.snapshot(country, state)
+                : addressGeoCounters.fromDatabase(country, state);
     }
 
     /**
@@ -250,11 +441,8 @@ public class AddressService {
      */
     @Transactional
     public void unsetDefaultAddress(Long userId) {
-        addressRepository.findByUserIdAndIsDefaultTrue(userId).ifPresent(address -> {
-            address.setIsDefault(false);
-            addressRepository.save(address);
+        if (addressRepository.clearDefault(userId) > 0) {
             log.debug("Unset default address for user id: {}", userId);
-        });
+        }
     }
 }
-
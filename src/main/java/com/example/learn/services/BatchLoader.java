@@ -0,0 +1,144 @@
+package com.example.learn.services;
+
+import com.example.learn.config.BatchLookupProperties;
+import com.example.learn.exceptions.BadRequestException;
+
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-id lookups into one batched query, DataLoader style.
+ * The first caller of a batch waits up to the window for others to join, then runs one query
+ * for every id collected and hands each caller its row. A batch that fills up is dispatched at
+ * once by the caller that filled it. The query runs on the dispatching caller's thread, so no
+ * executor is involved and an idle service pays at most one window of latency per lookup.
+ * @param <V> Loaded value
+ */
+class BatchLoader<V> {
+
+    private final Function<Collection<Long>, List<V>> query;
+    private final Function<V, Long> idOf;
+    private final BatchLookupProperties properties;
+
+    // Guarded by this
+    private Batch<V> open;
+
+    private static final class Batch<V> {
+        private final Map<Long, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private final AtomicBoolean claimed = new AtomicBoolean();
+    }
+
+    /**
+     * @param query Loads the rows for a set of ids; missing ids are simply absent from the result
+     * @param idOf Id of a loaded row
+     * @param properties Window and batch size
+     */
+    BatchLoader(Function<Collection<Long>, List<V>> query, Function<V, Long> idOf, BatchLookupProperties properties) {
+        this.query = query;
+        this.idOf = idOf;
+        this.properties = properties;
+    }
+
+    /**
+     * Load one row, sharing the query with concurrent callers
+     * @param id Row ID
+     * @return Row, or null if it does not exist
+     */
+    V load(Long id) {
+        if (!properties.isCoalesce()) {
+            return single(id);
+        }
+        Batch<V> batch;
+        CompletableFuture<V> future;
+        boolean leader;
+        boolean full;
+        synchronized (this) {
+            leader = open == null;
+            if (leader) {
+                open = new Batch<>();
+            }
+            batch = open;
+            future = batch.futures.computeIfAbsent(id, key -> new CompletableFuture<>());
+            full = batch.futures.size() >= properties.getMaxBatchSize();
+            if (full) {
+                open = null;
+            }
+        }
+        if (full) {
+            batch.closed.countDown();
+            dispatch(batch);
+        } else if (leader) {
+            awaitWindow(batch);
+            synchronized (this) {
+                if (open == batch) {
+                    open = null;
+                }
+            }
+            dispatch(batch);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    /**
+     * Validate the ids of a multi-get request
+     * @param ids Requested ids
+     * @return Distinct ids in request order
+     * @throws BadRequestException if no ids or more than the maximum batch size are given
+     */
+    List<Long> distinctIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("ids", ids);
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > properties.getMaxBatchSize()) {
+            throw new BadRequestException("At most " + properties.getMaxBatchSize() + " ids can be requested at once");
+        }
+        return distinct;
+    }
+
+    private V single(Long id) {
+        List<V> rows = query.apply(List.of(id));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void awaitWindow(Batch<V> batch) {
+        try {
+            batch.closed.await(properties.getCoalesceWindow().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Run the query for a closed batch, once, and complete every caller waiting on it
+     */
+    private void dispatch(Batch<V> batch) {
+        if (!batch.claimed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Map<Long, V> rows = new LinkedHashMap<>();
+            for (V row : query.apply(List.copyOf(batch.futures.keySet()))) {
+                rows.put(idOf.apply(row), row);
+            }
+            batch.futures.forEach((id, future) -> future.complete(rows.get(id)));
+        } catch (RuntimeException ex) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(ex));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.learn.services;
+
+import com.example.learn.config.PaginationProperties;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.exceptions.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset pagination over the entity primary key.
+ * The cursor is an opaque token wrapping the last id of the previous page, so
+ * repositories seek with "id > :afterId ORDER BY id" instead of an OFFSET.
+ */
+@Component
+@RequiredArgsConstructor
+public class CursorPaginator {
+
+    private static final String CURSOR_PREFIX = "id:";
+    private static final String KEYED_CURSOR_PREFIX = "key:";
+
+    private final PaginationProperties properties;
+
+    /**
+     * Decode a cursor into the id to seek after
+     * @param cursor Opaque cursor, may be null for the first page
+     * @return id of the last row of the previous page, or 0 for the first page
+     * @throws BadRequestException if the cursor is malformed
+     */
+    public long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new BadRequestException("cursor", cursor);
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("cursor", cursor);
+        }
+    }
+
+    /**
+     * Encode the id of the last row of a page into an opaque cursor
+     * @param lastId id of the last row
+     * @return Opaque cursor
+     */
+    public String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor for a listing ordered by (sort key, id)
+     * @param cursor Opaque cursor, may be null for the first page
+     * @return Sort key and id of the last row of the previous page, or null for the first page
+     * @throws BadRequestException if the cursor is malformed
+     */
+    public long[] decodeKeyed(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (!decoded.startsWith(KEYED_CURSOR_PREFIX) || parts.length != 3) {
+                throw new BadRequestException("cursor", cursor);
+            }
+            return new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("cursor", cursor);
+        }
+    }
+
+    /**
+     * Encode the sort key and id of the last row of a page into an opaque cursor
+     * @param key Sort key of the last row
+     * @param lastId id of the last row
+     * @return Opaque cursor
+     */
+    public String encode(long key, Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((KEYED_CURSOR_PREFIX + key + ":" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Resolve the requested page size against the configured limits
+     * @param size Requested size, may be null
+     * @return Effective page size
+     * @throws BadRequestException if size is not positive
+     */
+    public int resolveSize(Integer size) {
+        if (size == null) {
+            return properties.getDefaultSize();
+        }
+        if (size < 1) {
+            throw new BadRequestException("size", size);
+        }
+        return Math.min(size, properties.getMaxSize());
+    }
+
+    /**
+     * Row limit to pass to the repository; one extra row tells whether another page exists
+     * @param size Effective page size
+     * @return Limit of size + 1
+     */
+    public Limit limit(int size) {
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * Build a page from rows fetched with {@link #limit(int)}
+     * @param rows Rows ordered by id ascending
+     * @param size Effective page size
+     * @param idExtractor Function returning the row id
+     * @param mapper Function mapping a row to its response
+     * @return CursorPage of mapped rows
+     */
+    public <E, R> CursorPage<R> page(List<E> rows, int size, Function<E, Long> idExtractor, Function<E, R> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(idExtractor.apply(pageRows.get(pageRows.size() - 1))) : null;
+        List<R> items = pageRows.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.learn.services;
+
+import com.example.learn.exceptions.BadRequestException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parsing of the fields= parameter of sparse listings
+ */
+final class Fieldsets {
+
+    static final String ID = "id";
+
+    private Fieldsets() {
+    }
+
+    /**
+     * Resolve a comma-separated field list against a whitelist.
+     * id is always selected because the next-page cursor is built from it.
+     * @param fields Requested fields, e.g. "name,price"
+     * @param whitelist Selectable fields in response order
+     * @return Selected fields in response order
+     * @throws BadRequestException if the list is blank or names an unknown field
+     */
+    static List<String> parse(String fields, Map<String, String> whitelist) {
+        if (fields == null || fields.isBlank()) {
+            throw new BadRequestException("fields", fields);
+        }
+        Set<String> requested = new HashSet<>();
+        requested.add(ID);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!whitelist.containsKey(name)) {
+                throw new BadRequestException("fields", name);
+            }
+            requested.add(name);
+        }
+        return whitelist.keySet().stream().filter(requested::contains).toList();
+    }
+
+    /**
+     * id of a sparse row
+     * @param row Row selected with {@link #parse}
+     * @return Row id
+     */
+    static Long id(Map<String, Object> row) {
+        return (Long) row.get(ID);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.learn.services;
+
+import com.example.learn.config.ImportProperties;
+import com.example.learn.dto.BulkImportResponse;
+import com.example.learn.dto.ProductRequest;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.mappers.ProductMapper;
+import com.example.learn.models.Product;
+import com.example.learn.repositories.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product ingestion from newline-delimited JSON.
+ * The body is read one line at a time and written in JDBC batches, so memory is bounded
+ * by the batch size rather than the size of the upload.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO products "
+            + "(name, description, price, quantity, category, sku, is_active, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImportProperties properties;
+
+    private record Row(long line, ProductRequest request) {
+    }
+
+    private record Rejection(long line, String message) {
+    }
+
+    private record Written(int created, List<Rejection> rejected) {
+    }
+
+    /**
+     * Import products from an NDJSON stream, one ProductRequest per line
+     * @param inputStream Request body
+     * @return Report with created and failed counts and per-line errors
+     */
+    public BulkImportResponse importProducts(InputStream inputStream) {
+        log.debug("Importing products from NDJSON");
+        ObjectReader reader = objectMapper.readerFor(ProductRequest.class);
+        BulkImportResponse report = new BulkImportResponse();
+        List<Row> batch = new ArrayList<>(properties.getBatchSize());
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.setReceived(report.getReceived() + 1);
+                ProductRequest request;
+                try {
+                    request = reader.readValue(line);
+                } catch (JacksonException ex) {
+                    report.addError(lineNumber, "Malformed JSON: " + ex.getOriginalMessage(),
+                            properties.getMaxReportedErrors());
+                    continue;
+                }
+                String violations = validate(request);
+                if (violations != null) {
+                    report.addError(lineNumber, violations, properties.getMaxReportedErrors());
+                    continue;
+                }
+                batch.add(new Row(lineNumber, request));
+                if (batch.size() == properties.getBatchSize()) {
+                    writeBatch(batch, report);
+                    batch.clear();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, report);
+        }
+
+        log.info("Product import finished: {} received, {} created, {} failed",
+                report.getReceived(), report.getCreated(), report.getFailed());
+        return report;
+    }
+
+    private String validate(ProductRequest request) {
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Write a batch in its own transaction, so a failure only affects its own rows. When the
+     * database rejects the batch, its rows are written again one at a time, so only the rows
+     * that actually fail are reported, each with its own error.
+     */
+    private void writeBatch(List<Row> batch, BulkImportResponse report) {
+        int maxErrors = properties.getMaxReportedErrors();
+        Written written;
+        try {
+            written = transactionTemplate.execute(status -> insert(batch));
+        } catch (DataAccessException ex) {
+            if (batch.size() > 1) {
+                log.warn("Product import batch starting at line {} failed, retrying its rows one at a time",
+                        batch.get(0).line(), ex);
+                batch.forEach(row -> writeBatch(List.of(row), report));
+            } else {
+                report.addError(batch.get(0).line(), "Insert failed: " + ex.getMostSpecificCause().getMessage(),
+                        maxErrors);
+            }
+            return;
+        }
+        // Rejections are reported only once their batch commits, so a retried row is reported once
+        written.rejected().forEach(rejection -> report.addError(rejection.line(), rejection.message(), maxErrors));
+        report.setCreated(report.getCreated() + written.created());
+    }
+
+    /**
+     * Reject duplicates with one IN query per key, then insert the rest in a single JDBC batch
+     */
+    private Written insert(List<Row> batch) {
+        Set<String> takenNames = new HashSet<>(productRepository.findExistingNames(
+                batch.stream().map(row -> row.request().getName()).toList()));
+        Set<String> takenSkus = new HashSet<>(productRepository.findExistingSkus(
+                batch.stream().map(row -> row.request().getSku()).filter(this::hasText).toList()));
+
+        List<Rejection> rejected = new ArrayList<>();
+        List<Product> accepted = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            ProductRequest request = row.request();
+            if (!takenNames.add(request.getName())) {
+                rejected.add(new Rejection(row.line(), duplicate("name", request.getName())));
+            } else if (hasText(request.getSku()) && !takenSkus.add(request.getSku())) {
+                rejected.add(new Rejection(row.line(), duplicate("sku", request.getSku())));
+            } else {
+                accepted.add(productMapper.toEntity(request));
+            }
+        }
+        if (accepted.isEmpty()) {
+            return new Written(0, rejected);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, accepted, accepted.size(), (statement, product) -> {
+            statement.setString(1, product.getName());
+            statement.setString(2, product.getDescription());
+            statement.setBigDecimal(3, product.getPrice());
+            statement.setInt(4, product.getQuantity());
+            statement.setString(5, product.getCategory());
+            statement.setString(6, product.getSku());
+            statement.setBoolean(7, product.getIsActive());
+            statement.setTimestamp(8, now);
+            statement.setTimestamp(9, now);
+        });
+        // Reload the inserted rows once so in-memory views learn their generated ids
+        Set<String> names = new HashSet<>();
+        accepted.forEach(product -> names.add(product.getName()));
+        productRepository.findResponsesByNameIn(names).forEach(product ->
+                eventPublisher.publishEvent(ProductChangedEvent.created(product)));
+        return new Written(accepted.size(), rejected);
+    }
+
+    private boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private static String duplicate(String fieldName, Object fieldValue) {
+        return String.format("Product already exists with %s : '%s'", fieldName, fieldValue);
+    }
+}
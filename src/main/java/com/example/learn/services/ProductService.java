@@ -1,20 +1,56 @@
 package com.example.learn.services;
 
+import com.example.learn.caches.ProductCache;
+import com.example.learn.config.BatchLookupProperties;
+import com.example.learn.config.FacetProperties;
+import com.example.learn.config.ProductCacheProperties;
+import com.example.learn.dto.CacheStatsResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.dto.PreSerialized;
+import com.example.learn.dto.ProductFacetsResponse;
 import com.example.learn.dto.ProductRequest;
 import com.example.learn.dto.ProductResponse;
+import com.example.learn.dto.StockAdjustmentResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.events.ProductStockChangedEvent;
+import com.example.learn.exceptions.BadRequestException;
 import com.example.learn.exceptions.DuplicateResourceException;
+import com.example.learn.exceptions.InsufficientStockException;
 import com.example.learn.exceptions.ResourceNotFoundException;
+import com.example.learn.indexes.ProductFacetCounters;
+import com.example.learn.indexes.ProductNameIndex;
+import com.example.learn.indexes.ProductPriceIndex;
+import com.example.learn.indexes.UniqueKeyFilters;
+import com.example.learn.inventory.InventoryEngine;
 import com.example.learn.mappers.ProductMapper;
 import com.example.learn.models.Product;
 import com.example.learn.repositories.ProductRepository;
+import com.example.learn.repositories.ProductRepositoryCustom;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,31 +58,106 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ProductService {
 
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    private static final int MAX_QUANTITY = 999999;
+
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final CursorPaginator cursorPaginator;
+    private final ProductCache productCache;
+    private final ProductNameIndex productNameIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final ProductFacetCounters productFacetCounters;
+    private final FacetProperties facetProperties;
+    private final InventoryEngine inventoryEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final BatchLookupProperties batchLookupProperties;
+    private final ProductCacheProperties productCacheProperties;
+    private final UniqueKeyFilters uniqueKeyFilters;
+
+    private BatchLoader<ProductResponse> productLoader;
+
+    @PostConstruct
+    void initProductLoader() {
+        productLoader = new BatchLoader<>(productRepository::findResponsesByIdIn, ProductResponse::getId,
+                batchLookupProperties);
+    }
 
     /**
-     * Get all products
-     * @return List of ProductResponse
+     * Get a page of products
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of ProductResponse
      */
-    public List<ProductResponse> findAll() {
-        log.debug("Fetching all products");
-        return productRepository.findAll().stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<ProductResponse> findAll(String cursor, Integer size) {
+        log.debug("Fetching products after cursor: {}", cursor);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<ProductResponse> products = productRepository.findResponsesAfter(
+                cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(products, pageSize, ProductResponse::getId, this::withLiveQuantity);
     }
 
     /**
-     * Get product by ID
+     * Get a page of products, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findAllFields(String fields, String cursor, Integer size) {
+        log.debug("Fetching product fields {} after cursor: {}", fields, cursor);
+        List<String> selected = Fieldsets.parse(fields, ProductRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = productRepository.findFieldsAfter(
+                selected, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, this::withLiveQuantity);
+    }
+
+    /**
+     * Get product by ID; cache misses from concurrent callers share one batched query
      * @param id Product ID
      * @return ProductResponse
      * @throws ResourceNotFoundException if product not found
      */
     public ProductResponse findById(Long id) {
         log.debug("Fetching product with id: {}", id);
-        Product product = productRepository.findById(id)
+        ProductResponse product = productCache.getById(id, productLoader::load)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
-        return productMapper.toResponse(product);
+        return withLiveQuantity(product);
+    }
+
+    /**
+     * Get product by ID together with its cached JSON, so writing the response is a byte copy.
+     * Hot products carry live stock and are serialised on write instead.
+     * @param id Product ID
+     * @return ProductResponse wrapped with its JSON
+     * @throws ResourceNotFoundException if product not found
+     */
+    public PreSerialized<ProductResponse> findSerializedById(Long id) {
+        if (!productCacheProperties.isPreSerialize() || inventoryEngine.handles(id)) {
+            return PreSerialized.of(findById(id));
+        }
+        log.debug("Fetching serialised product with id: {}", id);
+        return productCache.getSerializedById(id, productLoader::load)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+    }
+
+    /**
+     * Get several products by ID; cache misses are loaded with one query
+     * @param ids Product IDs
+     * @return ProductResponse by id in request order, without the ids that do not exist
+     * @throws BadRequestException if no ids or too many ids are given
+     */
+    public Map<Long, ProductResponse> findByIds(Collection<Long> ids) {
+        List<Long> distinct = productLoader.distinctIds(ids);
+        log.debug("Fetching {} products by id", distinct.size());
+        Map<Long, ProductResponse> products = productCache.getAllById(distinct, missing ->
+                productRepository.findResponsesByIdIn(List.copyOf(missing)).stream()
+                        .collect(Collectors.toMap(ProductResponse::getId, Function.identity())));
+        Map<Long, ProductResponse> result = new LinkedHashMap<>();
+        products.forEach((id, product) -> result.put(id, withLiveQuantity(product)));
+        return result;
     }
 
     /**
@@ -57,9 +168,10 @@ public class ProductService {
      */
     public ProductResponse findByName(String name) {
         log.debug("Fetching product with name: {}", name);
-        Product product = productRepository.findByName(name)
+        ProductResponse product = productCache
+                .getByName(name, key -> productRepository.findResponseByName(key).orElse(null))
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "name", name));
-        return productMapper.toResponse(product);
+        return withLiveQuantity(product);
     }
 
     /**
@@ -70,81 +182,285 @@ public class ProductService {
      */
     public ProductResponse findBySku(String sku) {
         log.debug("Fetching product with SKU: {}", sku);
-        Product product = productRepository.findBySku(sku)
+        ProductResponse product = productCache
+                .getBySku(sku, key -> productRepository.findResponseBySku(key).orElse(null))
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "sku", sku));
-        return productMapper.toResponse(product);
+        return withLiveQuantity(product);
     }
 
     /**
-     * Get products by category
+     * Get a page of products by category
      * @param category Product category
-     * @return List of ProductResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of ProductResponse
      */
-    public List<ProductResponse> findByCategory(String category) {
+    public CursorPage<ProductResponse> findByCategory(String category, String cursor, Integer size) {
         log.debug("Fetching products with category: {}", category);
-        return productRepository.findByCategoryIgnoreCase(category).stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<ProductResponse> products = productRepository.findResponsesByCategoryAfter(
+                category, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(products, pageSize, ProductResponse::getId, this::withLiveQuantity);
     }
 
     /**
-     * Get all active products
-     * @return List of ProductResponse
+     * Get a page of products in a category, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param category Product category
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
      */
-    public List<ProductResponse> findActiveProducts() {
-        log.debug("Fetching all active products");
-        return productRepository.findByIsActiveTrue().stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<Map<String, Object>> findFieldsByCategory(String fields, String category, String cursor,
+                                                                Integer size) {
+        log.debug("Fetching product fields {} with category: {}", fields, category);
+        List<String> selected = Fieldsets.parse(fields, ProductRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = productRepository.findFieldsByCategoryAfter(
+                selected, category, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, this::withLiveQuantity);
+    }
+
+    /**
+     * Get a page of active products
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of ProductResponse
+     */
+    public CursorPage<ProductResponse> findActiveProducts(String cursor, Integer size) {
+        log.debug("Fetching active products");
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<ProductResponse> products = productRepository.findActiveResponsesAfter(
+                cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(products, pageSize, ProductResponse::getId, this::withLiveQuantity);
+    }
+
+    /**
+     * Get a page of active products, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findActiveProductFields(String fields, String cursor, Integer size) {
+        log.debug("Fetching active product fields {}", fields);
+        List<String> selected = Fieldsets.parse(fields, ProductRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = productRepository.findActiveFieldsAfter(
+                selected, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, this::withLiveQuantity);
     }
 
     /**
-     * Get in-stock products
-     * @return List of ProductResponse
+     * Get a page of in-stock products
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of ProductResponse
      */
-    public List<ProductResponse> findInStockProducts() {
+    public CursorPage<ProductResponse> findInStockProducts(String cursor, Integer size) {
         log.debug("Fetching in-stock products");
-        return productRepository.findInStockProducts().stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<ProductResponse> products = productRepository.findInStockProducts(
+                cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(products, pageSize, ProductResponse::getId, this::withLiveQuantity);
     }
 
     /**
-     * Get out-of-stock products
-     * @return List of ProductResponse
+     * Get a page of out-of-stock products
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of ProductResponse
      */
-    public List<ProductResponse> findOutOfStockProducts() {
+    public CursorPage<ProductResponse> findOutOfStockProducts(String cursor, Integer size) {
         log.debug("Fetching out-of-stock products");
-        return productRepository.findOutOfStockProducts().stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<ProductResponse> products = productRepository.findOutOfStockProducts(
+                cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(products, pageSize, ProductResponse::getId, this::withLiveQuantity);
     }
 
     /**
-     * Get products within price range
-     * @param minPrice Minimum price
-     * @param maxPrice Maximum price
-     * @return List of ProductResponse
+     * Get a page of in-stock products, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
      */
-    public List<ProductResponse> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        log.debug("Fetching products within price range: {} - {}", minPrice, maxPrice);
-        return productRepository.findByPriceRange(minPrice, maxPrice).stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<Map<String, Object>> findInStockProductFields(String fields, String cursor, Integer size) {
+        log.debug("Fetching in-stock product fields {}", fields);
+        List<String> selected = Fieldsets.parse(fields, ProductRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = productRepository.findInStockFieldsAfter(
+                selected, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, this::withLiveQuantity);
     }
 
     /**
-     * Search products by name
+     * Get a page of out-of-stock products, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findOutOfStockProductFields(String fields, String cursor, Integer size) {
+        log.debug("Fetching out-of-stock product fields {}", fields);
+        List<String> selected = Fieldsets.parse(fields, ProductRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = productRepository.findOutOfStockFieldsAfter(
+                selected, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, this::withLiveQuantity);
+    }
+
+    /**
+     * Get active products within a price range from the in-memory price index.
+     * Only the ids on the requested page are loaded from the database. Sorting by id scans the
+     * whole range in memory on every page; sorting by price reads only the page.
+     * @param minPrice Minimum price, inclusive
+     * @param maxPrice Maximum price, inclusive
+     * @param sort id (default), price or price_desc
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of ProductResponse
+     * @throws BadRequestException if sort or cursor is invalid
+     */
+    public CursorPage<ProductResponse> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, String sort,
+                                                        String cursor, Integer size) {
+        log.debug("Fetching products within price range: {} - {} sorted by {}", minPrice, maxPrice, sort);
+        return pageByPrice(minPrice, maxPrice, sort, cursor, size, ids -> inOrder(ids,
+                productRepository.findResponsesByIdIn(ids), ProductResponse::getId, this::withLiveQuantity));
+    }
+
+    /**
+     * Get active products within a price range, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param minPrice Minimum price, inclusive
+     * @param maxPrice Maximum price, inclusive
+     * @param sort id (default), price or price_desc
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     * @throws BadRequestException if fields, sort or cursor is invalid
+     */
+    public CursorPage<Map<String, Object>> findFieldsByPriceRange(String fields, BigDecimal minPrice,
+                                                                  BigDecimal maxPrice, String sort, String cursor,
+                                                                  Integer size) {
+        log.debug("Fetching product fields {} within price range: {} - {}", fields, minPrice, maxPrice);
+        List<String> selected = Fieldsets.parse(fields, ProductRepositoryCustom.SPARSE_FIELDS);
+        return pageByPrice(minPrice, maxPrice, sort, cursor, size, ids -> inOrder(ids,
+                productRepository.findFieldsByIdIn(selected, ids), Fieldsets::id, this::withLiveQuantity));
+    }
+
+    /**
+     * Page through the price index, loading only the ids on the requested page
+     * @param load Items of the given ids, in the same order
+     */
+    private <T> CursorPage<T> pageByPrice(BigDecimal minPrice, BigDecimal maxPrice, String sort, String cursor,
+                                          Integer size, Function<List<Long>, List<T>> load) {
+        int pageSize = cursorPaginator.resolveSize(size);
+        ProductPriceIndex.Order order = priceOrder(sort);
+        ProductPriceIndex.Position after = null;
+        if (order == ProductPriceIndex.Order.ID) {
+            long afterId = cursorPaginator.decode(cursor);
+            after = afterId > 0 ? new ProductPriceIndex.Position(afterId, afterId) : null;
+        } else {
+            long[] keyed = cursorPaginator.decodeKeyed(cursor);
+            after = keyed != null ? new ProductPriceIndex.Position(keyed[0], keyed[1]) : null;
+        }
+
+        List<ProductPriceIndex.Position> positions =
+                productPriceIndex.range(minPrice, maxPrice, order, after, pageSize + 1);
+        boolean hasNext = positions.size() > pageSize;
+        List<ProductPriceIndex.Position> pagePositions = hasNext ? positions.subList(0, pageSize) : positions;
+        List<Long> ids = pagePositions.stream().map(ProductPriceIndex.Position::id).toList();
+        List<T> items = load.apply(ids);
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductPriceIndex.Position last = pagePositions.get(pagePositions.size() - 1);
+            nextCursor = order == ProductPriceIndex.Order.ID
+                    ? cursorPaginator.encode(last.id())
+                    : cursorPaginator.encode(last.key(), last.id());
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    private ProductPriceIndex.Order priceOrder(String sort) {
+        if (sort == null || sort.equals("id")) {
+            return ProductPriceIndex.Order.ID;
+        }
+        return switch (sort) {
+            case "price" -> ProductPriceIndex.Order.PRICE_ASC;
+            case "price_desc" -> ProductPriceIndex.Order.PRICE_DESC;
+            default -> throw new BadRequestException("sort", sort);
+        };
+    }
+
+    /**
+     * Search products by name using the in-memory trigram index
      * @param keyword Search keyword
-     * @return List of ProductResponse
+     * @param limit Maximum number of results, null for the default page size
+     * @return List of ProductResponse, best match first
      */
-    public List<ProductResponse> searchByName(String keyword) {
+    public List<ProductResponse> searchByName(String keyword, Integer limit) {
         log.debug("Searching products with keyword: {}", keyword);
-        return productRepository.findByNameContainingIgnoreCase(keyword).stream()
-                .map(productMapper::toResponse)
+        List<Long> ids = productNameIndex.search(keyword, cursorPaginator.resolveSize(limit));
+        return inOrder(ids, productRepository.findResponsesByIdIn(ids), ProductResponse::getId, this::withLiveQuantity);
+    }
+
+    /**
+     * Search products by name, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param keyword Search keyword
+     * @param limit Maximum number of results, null for the default page size
+     * @return List of field maps, best match first
+     */
+    public List<Map<String, Object>> searchFieldsByName(String fields, String keyword, Integer limit) {
+        log.debug("Searching product fields {} with keyword: {}", fields, keyword);
+        List<String> selected = Fieldsets.parse(fields, ProductRepositoryCustom.SPARSE_FIELDS);
+        List<Long> ids = productNameIndex.search(keyword, cursorPaginator.resolveSize(limit));
+        return inOrder(ids, productRepository.findFieldsByIdIn(selected, ids), Fieldsets::id, this::withLiveQuantity);
+    }
+
+    /**
+     * Rows of an id list from an in-memory index, in the index's order, without ids deleted since
+     */
+    private <T> List<T> inOrder(List<Long> ids, List<T> rows, Function<T, Long> id, UnaryOperator<T> finish) {
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(id, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(finish)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Write every product as newline-delimited JSON, one row at a time.
+     * Rows are projected straight into responses, so nothing accumulates in the persistence context
+     * and memory stays flat regardless of catalog size.
+     * @param outputStream Target stream, left open
+     * @return Number of products written
+     */
+    public long exportAll(OutputStream outputStream) {
+        log.debug("Exporting all products as NDJSON");
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("");
+        long count = 0;
+        try (Stream<ProductResponse> products = productRepository.streamAllResponses();
+             JsonGenerator generator = writer.createGenerator(outputStream)) {
+            Iterator<ProductResponse> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, withLiveQuantity(iterator.next()));
+                generator.writeRaw('\n');
+                if (++count % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        log.info("Exported {} products", count);
+        return count;
+    }
+
     /**
      * Create new product
      * @param productRequest Product data
@@ -156,13 +472,13 @@ public class ProductService {
         log.debug("Creating new product with name: {}", productRequest.getName());
 
         // Check if product name already exists
-        if (productRepository.existsByName(productRequest.getName())) {
+        if (nameTaken(productRequest.getName())) {
             throw new DuplicateResourceException("Product", "name", productRequest.getName());
         }
 
         // Check if SKU already exists (if provided)
         if (productRequest.getSku() != null && !productRequest.getSku().isEmpty()
-                && productRepository.existsBySku(productRequest.getSku())) {
+                && skuTaken(productRequest.getSku())) {
             throw new DuplicateResourceException("Product", "sku", productRequest.getSku());
         }
 
@@ -170,7 +486,9 @@ public class ProductService {
         Product savedProduct = productRepository.save(product);
         log.info("Product created successfully with id: {}", savedProduct.getId());
 
-        return productMapper.toResponse(savedProduct);
+        ProductResponse response = productMapper.toResponse(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.created(response));
+        return response;
     }
 
     /**
@@ -184,28 +502,43 @@ public class ProductService {
     @Transactional
     public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
         log.debug("Updating product with id: {}", id);
+        requireQuantity(productRequest.getQuantity());
 
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
 
         // Check if name is being changed and if it already exists
         if (!existingProduct.getName().equals(productRequest.getName())
-                && productRepository.existsByName(productRequest.getName())) {
+                && nameTaken(productRequest.getName())) {
             throw new DuplicateResourceException("Product", "name", productRequest.getName());
         }
 
         // Check if SKU is being changed and if it already exists
         if (productRequest.getSku() != null && !productRequest.getSku().isEmpty()
                 && !productRequest.getSku().equals(existingProduct.getSku())
-                && productRepository.existsBySku(productRequest.getSku())) {
+                && skuTaken(productRequest.getSku())) {
             throw new DuplicateResourceException("Product", "sku", productRequest.getSku());
         }
 
+        ProductResponse previous = productMapper.toResponse(existingProduct);
+        productCache.evict(id);
+        Integer storedQuantity = existingProduct.getQuantity();
         productMapper.updateEntityFromRequest(productRequest, existingProduct);
+        boolean hot = inventoryEngine.handles(id);
+        if (hot) {
+            // The row's quantity is owned by the write-behind flush; move the in-memory stock instead
+            existingProduct.setQuantity(storedQuantity);
+        }
         Product updatedProduct = productRepository.save(existingProduct);
         log.info("Product updated successfully with id: {}", updatedProduct.getId());
 
-        return productMapper.toResponse(updatedProduct);
+        ProductResponse response = productMapper.toResponse(updatedProduct);
+        // Both snapshots carry the stored quantity; the flush reports the stock move once it lands
+        eventPublisher.publishEvent(ProductChangedEvent.updated(previous, productMapper.toResponse(updatedProduct)));
+        if (hot) {
+            setHotQuantityAfterCommit(id, productRequest.getQuantity(), response);
+        }
+        return response;
     }
 
     /**
@@ -220,8 +553,11 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
 
+        productCache.evict(id);
         productRepository.delete(product);
         log.info("Product deleted successfully with id: {}", id);
+
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(productMapper.toResponse(product)));
     }
 
     /**
@@ -237,11 +573,15 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
 
+        ProductResponse previous = productMapper.toResponse(product);
+        productCache.evict(id);
         product.setIsActive(false);
         Product updatedProduct = productRepository.save(product);
         log.info("Product deactivated successfully with id: {}", id);
 
-        return productMapper.toResponse(updatedProduct);
+        ProductResponse response = withLiveQuantity(productMapper.toResponse(updatedProduct));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(previous, response));
+        return response;
     }
 
     /**
@@ -257,11 +597,15 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
 
+        ProductResponse previous = productMapper.toResponse(product);
+        productCache.evict(id);
         product.setIsActive(true);
         Product updatedProduct = productRepository.save(product);
         log.info("Product activated successfully with id: {}", id);
 
-        return productMapper.toResponse(updatedProduct);
+        ProductResponse response = withLiveQuantity(productMapper.toResponse(updatedProduct));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(previous, response));
+        return response;
     }
 
     /**
@@ -270,19 +614,183 @@ public class ProductService {
      * @param quantity New quantity
      * @return Updated ProductResponse
      * @throws ResourceNotFoundException if product not found
+     * @throws BadRequestException if the quantity is negative or above the maximum
      */
     @Transactional
     public ProductResponse updateQuantity(Long id, Integer quantity) {
         log.debug("Updating quantity for product id: {} to {}", id, quantity);
+        requireQuantity(quantity);
 
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
 
+        ProductResponse previous = productMapper.toResponse(product);
+        productCache.evict(id);
+        if (inventoryEngine.handles(id)) {
+            setHotQuantityAfterCommit(id, quantity, previous);
+            log.info("Hot product quantity set in memory for id: {}", id);
+            return previous;
+        }
         product.setQuantity(quantity);
         Product updatedProduct = productRepository.save(product);
         log.info("Product quantity updated successfully with id: {}", id);
 
-        return productMapper.toResponse(updatedProduct);
+        ProductResponse response = productMapper.toResponse(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(previous, response));
+        return response;
+    }
+
+    /**
+     * Reserve stock with a single conditional UPDATE, without loading the product
+     * @param id Product ID
+     * @param amount Quantity to take, at least 1
+     * @return StockAdjustmentResponse
+     * @throws ResourceNotFoundException if product not found
+     * @throws InsufficientStockException if fewer than amount units are left
+     */
+    @Transactional
+    public StockAdjustmentResponse decrementQuantity(Long id, int amount) {
+        log.debug("Decrementing quantity for product id: {} by {}", id, amount);
+        requirePositive(amount);
+
+        if (inventoryEngine.handles(id)) {
+            if (!inventoryEngine.reserve(id, amount)) {
+                throw new InsufficientStockException(id, amount);
+            }
+            return new StockAdjustmentResponse(id, -amount);
+        }
+        if (productRepository.decrementQuantity(id, amount) == 0) {
+            // Only the failure path pays for telling a missing product from a short one
+            if (!productRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Product", "id", id);
+            }
+            throw new InsufficientStockException(id, amount);
+        }
+        productCache.evict(id);
+        // The row is locked by the UPDATE, so this is the quantity the change left behind
+        eventPublisher.publishEvent(new ProductStockChangedEvent(id, -amount, productRepository.findQuantityById(id)));
+        return new StockAdjustmentResponse(id, -amount);
+    }
+
+    /**
+     * Return stock with a single conditional UPDATE, without loading the product
+     * @param id Product ID
+     * @param amount Quantity to add, at least 1
+     * @return StockAdjustmentResponse
+     * @throws ResourceNotFoundException if product not found
+     * @throws BadRequestException if the quantity would exceed the maximum
+     */
+    @Transactional
+    public StockAdjustmentResponse incrementQuantity(Long id, int amount) {
+        log.debug("Incrementing quantity for product id: {} by {}", id, amount);
+        requirePositive(amount);
+
+        if (inventoryEngine.handles(id)) {
+            if (!inventoryEngine.release(id, amount)) {
+                throw new BadRequestException("Quantity cannot exceed " + MAX_QUANTITY);
+            }
+            return new StockAdjustmentResponse(id, amount);
+        }
+        if (productRepository.incrementQuantity(id, amount, MAX_QUANTITY) == 0) {
+            if (!productRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Product", "id", id);
+            }
+            throw new BadRequestException("Quantity cannot exceed " + MAX_QUANTITY);
+        }
+        productCache.evict(id);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(id, amount, productRepository.findQuantityById(id)));
+        return new StockAdjustmentResponse(id, amount);
+    }
+
+    /**
+     * Hot products' stock lives in the inventory engine; the stored quantity lags by one flush
+     */
+    private ProductResponse withLiveQuantity(ProductResponse product) {
+        if (!inventoryEngine.handles(product.getId())) {
+            return product;
+        }
+        // Copy rather than mutate: the argument may be the cached instance
+        return new ProductResponse(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), inventoryEngine.available(product.getId()), product.getCategory(),
+                product.getSku(), product.getIsActive(), product.getCreatedAt(), product.getUpdatedAt());
+    }
+
+    /**
+     * Sparse rows of hot products get the live stock too, when quantity was selected
+     */
+    private Map<String, Object> withLiveQuantity(Map<String, Object> row) {
+        Long id = Fieldsets.id(row);
+        if (row.containsKey("quantity") && inventoryEngine.handles(id)) {
+            row.put("quantity", inventoryEngine.available(id));
+        }
+        return row;
+    }
+
+    /**
+     * Check the name against the Bloom filter first; only a possible hit queries the database
+     */
+    private boolean nameTaken(String name) {
+        return uniqueKeyFilters.mightContain(UniqueKeyFilters.Key.PRODUCT_NAME, name)
+                && productRepository.existsByName(name);
+    }
+
+    private boolean skuTaken(String sku) {
+        return uniqueKeyFilters.mightContain(UniqueKeyFilters.Key.PRODUCT_SKU, sku)
+                && productRepository.existsBySku(sku);
+    }
+
+    /**
+     * Move a hot product's in-memory stock once the transaction commits, then report the live
+     * quantity in the response.
+     * The engine's change is durable as soon as it is journaled, so making it before the commit
+     * would keep it through a rollback that discards the rest of the edit. By then the edit is
+     * committed, so a set that loses to concurrent reservations is logged rather than reported to
+     * the client as a failed write.
+     */
+    private void setHotQuantityAfterCommit(Long id, int quantity, ProductResponse response) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            setHotQuantity(id, quantity, response);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                setHotQuantity(id, quantity, response);
+            }
+        });
+    }
+
+    private void setHotQuantity(Long id, int quantity, ProductResponse response) {
+        try {
+            inventoryEngine.setQuantity(id, quantity);
+        } catch (InsufficientStockException | IllegalStateException ex) {
+            log.warn("Could not set the in-memory quantity of hot product {} to {}: {}",
+                    id, quantity, ex.getMessage());
+        }
+        if (inventoryEngine.handles(id)) {
+            response.setQuantity(inventoryEngine.available(id));
+        }
+    }
+
+    private void requireQuantity(Integer quantity) {
+        if (quantity == null || quantity < 0 || quantity > MAX_QUANTITY) {
+            throw new BadRequestException("quantity", quantity);
+        }
+    }
+
+    private void requirePositive(int amount) {
+        if (amount < 1) {
+            throw new BadRequestException("amount", amount);
+        }
+    }
+
+    /**
+     * Check if the product's stock is served from memory, changing without touching updatedAt
+     * @param id Product ID
+     * @return true if the product is hot
+     */
+    public boolean hasLiveStock(Long id) {
+        return inventoryEngine.handles(id);
     }
 
     /**
@@ -316,7 +824,31 @@ public class ProductService {
      * @return count of products in category
      */
     public long countByCategory(String category) {
-        return productRepository.countByCategory(category);
+        return productRepository.countByCategoryIgnoreCase(category);
+    }
+
+    /**
+     * Get product counts per category, status and price bucket
+     * @return ProductFacetsResponse
+     */
+    public ProductFacetsResponse facets() {
+        log.debug("Fetching product facets");
+        return facetProperties.isInMemory() ? productFacetCounters.snapshot() : productFacetCounters.fromDatabase();
     }
-}
 
+    /**
+     * Get in-memory stock of the hot products
+     * @return Units available by product id, empty when the inventory engine is disabled
+     */
+    public Map<Long, Long> hotStock() {
+        return inventoryEngine.availability();
+    }
+
+    /**
+     * Get product lookup cache statistics
+     * @return Map of lookup key to cache statistics
+     */
+    public Map<String, CacheStatsResponse> cacheStats() {
+        return productCache.stats();
+    }
+}
@@ -1,19 +1,44 @@
 package com.example.learn.services;
 
+import com.example.learn.config.BatchLookupProperties;
+import com.example.learn.config.TypeaheadProperties;
+import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.BulkDeleteResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.dto.UserProfileResponse;
 import com.example.learn.dto.UserRequest;
+import com.example.learn.dto.UserTypeaheadResponse;
 import com.example.learn.dto.UserResponse;
+import com.example.learn.events.AddressesPurgedEvent;
+import com.example.learn.events.UserChangedEvent;
+import com.example.learn.events.UsersDeletedEvent;
+import com.example.learn.exceptions.BadRequestException;
 import com.example.learn.exceptions.DuplicateResourceException;
 import com.example.learn.exceptions.ResourceNotFoundException;
+import com.example.learn.indexes.UniqueKeyFilters;
+import com.example.learn.indexes.UserNameIndex;
+import com.example.learn.mappers.AddressMapper;
 import com.example.learn.mappers.UserMapper;
 import com.example.learn.models.User;
 import com.example.learn.models.UserRole;
+import com.example.learn.repositories.AddressRepository;
 import com.example.learn.repositories.UserRepository;
+import com.example.learn.repositories.UserRepositoryCustom;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,31 +47,112 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class UserService {
 
+    /** Ids per bulk DELETE, within the IN-list limits of common databases */
+    static final int DELETE_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final AddressRepository addressRepository;
     private final UserMapper userMapper;
+    private final AddressMapper addressMapper;
+    private final CursorPaginator cursorPaginator;
+    private final BatchLookupProperties batchLookupProperties;
+    private final UniqueKeyFilters uniqueKeyFilters;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserNameIndex userNameIndex;
+    private final TypeaheadProperties typeaheadProperties;
+
+    private BatchLoader<UserResponse> userLoader;
+
+    @PostConstruct
+    void initUserLoader() {
+        userLoader = new BatchLoader<>(userRepository::findResponsesByIdIn, UserResponse::getId, batchLookupProperties);
+    }
 
     /**
-     * Get all users
-     * @return List of UserResponse
+     * Get a page of users
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of UserResponse
      */
-    public List<UserResponse> findAll() {
-        log.debug("Fetching all users");
-        return userRepository.findAll().stream()
-                .map(userMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<UserResponse> findAll(String cursor, Integer size) {
+        log.debug("Fetching users after cursor: {}", cursor);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<UserResponse> users = userRepository.findResponsesAfter(
+                cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(users, pageSize, UserResponse::getId, Function.identity());
     }
 
     /**
-     * Get user by ID
+     * Get a page of users, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findAllFields(String fields, String cursor, Integer size) {
+        log.debug("Fetching user fields {} after cursor: {}", fields, cursor);
+        List<String> selected = Fieldsets.parse(fields, UserRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = userRepository.findFieldsAfter(
+                selected, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
+    }
+
+    /**
+     * Get user by ID; concurrent callers share one batched query
      * @param id User ID
      * @return UserResponse
      * @throws ResourceNotFoundException if user not found
      */
     public UserResponse findById(Long id) {
         log.debug("Fetching user with id: {}", id);
-        User user = userRepository.findById(id)
+        UserResponse user = userLoader.load(id);
+        if (user == null) {
+            throw new ResourceNotFoundException("User", "id", id);
+        }
+        return user;
+    }
+
+    /**
+     * Get a user with all their addresses and the default one, from a single fetch-join query
+     * @param id User ID
+     * @return UserProfileResponse with the addresses in id order
+     * @throws ResourceNotFoundException if user not found
+     */
+    public UserProfileResponse findProfile(Long id) {
+        log.debug("Fetching profile of user with id: {}", id);
+        User user = userRepository.findWithAddressesById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
-        return userMapper.toResponse(user);
+        List<AddressResponse> addresses = user.getAddresses().stream()
+                .map(addressMapper::toResponse)
+                .sorted(Comparator.comparing(AddressResponse::getId))
+                .toList();
+        AddressResponse defaultAddress = addresses.stream()
+                .filter(address -> Boolean.TRUE.equals(address.getIsDefault()))
+                .findFirst()
+                .orElse(null);
+        return new UserProfileResponse(userMapper.toResponse(user), addresses, defaultAddress);
+    }
+
+    /**
+     * Get several users by ID with one query
+     * @param ids User IDs
+     * @return UserResponse by id in request order, without the ids that do not exist
+     * @throws BadRequestException if no ids or too many ids are given
+     */
+    public Map<Long, UserResponse> findByIds(Collection<Long> ids) {
+        List<Long> distinct = userLoader.distinctIds(ids);
+        log.debug("Fetching {} users by id", distinct.size());
+        Map<Long, UserResponse> users = userRepository.findResponsesByIdIn(distinct).stream()
+                .collect(Collectors.toMap(UserResponse::getId, Function.identity()));
+        Map<Long, UserResponse> result = new LinkedHashMap<>();
+        for (Long id : distinct) {
+            UserResponse user = users.get(id);
+            if (user != null) {
+                result.put(id, user);
+            }
+        }
+        return result;
     }
 
     /**
@@ -57,33 +163,92 @@ public class UserService {
      */
     public UserResponse findByEmail(String email) {
         log.debug("Fetching user with email: {}", email);
-        User user = userRepository.findByEmail(email)
+        return userRepository.findResponseByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
-        return userMapper.toResponse(user);
     }
 
     /**
-     * Get users by role
+     * Get a page of users by role
      * @param role UserRole
-     * @return List of UserResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of UserResponse
      */
-    public List<UserResponse> findByRole(UserRole role) {
+    public CursorPage<UserResponse> findByRole(UserRole role, String cursor, Integer size) {
         log.debug("Fetching users with role: {}", role);
-        return userRepository.findByRole(role).stream()
-                .map(userMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<UserResponse> users = userRepository.findResponsesByRoleAfter(
+                role, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(users, pageSize, UserResponse::getId, Function.identity());
+    }
+
+    /**
+     * Get a page of users by role, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param role UserRole
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> findFieldsByRole(String fields, UserRole role, String cursor, Integer size) {
+        log.debug("Fetching user fields {} with role: {}", fields, role);
+        List<String> selected = Fieldsets.parse(fields, UserRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = userRepository.findFieldsByRoleAfter(
+                selected, role, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
     }
 
     /**
-     * Search users by name
+     * Search a page of users by name
      * @param name Search term
-     * @return List of UserResponse
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of UserResponse
      */
-    public List<UserResponse> searchByName(String name) {
+    public CursorPage<UserResponse> searchByName(String name, String cursor, Integer size) {
         log.debug("Searching users with name containing: {}", name);
-        return userRepository.findByNameContainingIgnoreCase(name).stream()
-                .map(userMapper::toResponse)
-                .collect(Collectors.toList());
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<UserResponse> users = userRepository.findResponsesByNameContainingAfter(
+                name, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(users, pageSize, UserResponse::getId, Function.identity());
+    }
+
+    /**
+     * Search a page of users by name, reading and returning only the selected fields
+     * @param fields Comma-separated field names; id is always included
+     * @param name Search term
+     * @param cursor Cursor of the previous page, null for the first page
+     * @param size Requested page size, null for the default
+     * @return CursorPage of field maps
+     */
+    public CursorPage<Map<String, Object>> searchFieldsByName(String fields, String name, String cursor, Integer size) {
+        log.debug("Searching user fields {} with name containing: {}", fields, name);
+        List<String> selected = Fieldsets.parse(fields, UserRepositoryCustom.SPARSE_FIELDS);
+        int pageSize = cursorPaginator.resolveSize(size);
+        List<Map<String, Object>> rows = userRepository.findFieldsByNameContainingAfter(
+                selected, name, cursorPaginator.decode(cursor), cursorPaginator.limit(pageSize));
+        return cursorPaginator.page(rows, pageSize, Fieldsets::id, Function.identity());
+    }
+
+    /**
+     * Suggest users whose name has words starting with the typed words, from the in-memory prefix index
+     * @param query Typed text
+     * @param limit Maximum number of suggestions, null for the default
+     * @return UserTypeaheadResponse, truncated if the latency budget ran out
+     * @throws BadRequestException if the query is blank or the limit is not positive
+     */
+    public UserTypeaheadResponse typeahead(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("q", query);
+        }
+        if (limit != null && limit < 1) {
+            throw new BadRequestException("limit", limit);
+        }
+        int effectiveLimit = limit == null
+                ? typeaheadProperties.getDefaultLimit()
+                : Math.min(limit, typeaheadProperties.getMaxLimit());
+        return userNameIndex.suggest(query, effectiveLimit);
     }
 
     /**
@@ -97,15 +262,18 @@ public class UserService {
         log.debug("Creating new user with email: {}", userRequest.getEmail());
 
         // Check if email already exists
-        if (userRepository.existsByEmail(userRequest.getEmail())) {
+        if (emailTaken(userRequest.getEmail())) {
             throw new DuplicateResourceException("User", "email", userRequest.getEmail());
         }
 
         User user = userMapper.toEntity(userRequest);
+        uniqueKeyFilters.add(UniqueKeyFilters.Key.USER_EMAIL, user.getEmail());
         User savedUser = userRepository.save(user);
         log.info("User created successfully with id: {}", savedUser.getId());
 
-        return userMapper.toResponse(savedUser);
+        UserResponse response = userMapper.toResponse(savedUser);
+        eventPublisher.publishEvent(new UserChangedEvent(response));
+        return response;
     }
 
     /**
@@ -125,19 +293,22 @@ public class UserService {
 
         // Check if email is being changed and if it already exists
         if (!existingUser.getEmail().equals(userRequest.getEmail())
-                && userRepository.existsByEmail(userRequest.getEmail())) {
+                && emailTaken(userRequest.getEmail())) {
             throw new DuplicateResourceException("User", "email", userRequest.getEmail());
         }
+        uniqueKeyFilters.add(UniqueKeyFilters.Key.USER_EMAIL, userRequest.getEmail());
 
         userMapper.updateEntityFromRequest(userRequest, existingUser);
         User updatedUser = userRepository.save(existingUser);
         log.info("User updated successfully with id: {}", updatedUser.getId());
 
-        return userMapper.toResponse(updatedUser);
+        UserResponse response = userMapper.toResponse(updatedUser);
+        eventPublisher.publishEvent(new UserChangedEvent(response));
+        return response;
     }
 
     /**
-     * Delete user by ID
+     * Delete user by ID together with their addresses, in two statements however many addresses they have
      * @param id User ID
      * @throws ResourceNotFoundException if user not found
      */
@@ -145,11 +316,45 @@ public class UserService {
     public void deleteUser(Long id) {
         log.debug("Deleting user with id: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
+        int addresses = addressRepository.bulkDeleteByUserId(id);
+        if (userRepository.bulkDeleteByIdIn(List.of(id)) == 0) {
+            // Rolls back the address delete, which found nothing anyway
+            throw new ResourceNotFoundException("User", "id", id);
+        }
+        log.info("User deleted successfully with id: {} ({} addresses)", id, addresses);
+        eventPublisher.publishEvent(new UsersDeletedEvent(List.of(id)));
+        if (addresses > 0) {
+            eventPublisher.publishEvent(new AddressesPurgedEvent(List.of(id), addresses));
+        }
+    }
 
-        userRepository.delete(user);
-        log.info("User deleted successfully with id: {}", id);
+    /**
+     * Delete users by ID together with their addresses, two statements per chunk of ids.
+     * Ids that do not exist are skipped.
+     * @param ids User IDs
+     * @return Number of users and addresses deleted
+     * @throws BadRequestException if no ids are given
+     */
+    @Transactional
+    public BulkDeleteResponse deleteUsers(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("ids", ids);
+        }
+        log.debug("Deleting {} users", ids.size());
+        BulkDeleteResponse result = new BulkDeleteResponse();
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int from = 0; from < distinct.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinct.size()));
+            result.setAddressesDeleted(result.getAddressesDeleted() + addressRepository.bulkDeleteByUserIdIn(chunk));
+            result.setUsersDeleted(result.getUsersDeleted() + userRepository.bulkDeleteByIdIn(chunk));
+        }
+        log.info("Users deleted: {} of {} requested ({} addresses)",
+                result.getUsersDeleted(), distinct.size(), result.getAddressesDeleted());
+        eventPublisher.publishEvent(new UsersDeletedEvent(distinct));
+        if (result.getAddressesDeleted() > 0) {
+            eventPublisher.publishEvent(new AddressesPurgedEvent(distinct, result.getAddressesDeleted()));
+        }
+        return result;
     }
 
     /**
@@ -168,4 +373,12 @@ public class UserService {
     public long count() {
         return userRepository.count();
     }
+
+    /**
+     * Check the email against the Bloom filter first; only a possible hit queries the database
+     */
+    private boolean emailTaken(String email) {
+        return uniqueKeyFilters.mightContain(UniqueKeyFilters.Key.USER_EMAIL, email)
+                && userRepository.existsByEmail(email);
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.learn.util;
+
+/**
+ * Hash helpers shared by the Bloom filters and the conditional-GET validators
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * MurmurHash3 fmix64 finaliser: every input bit affects every output bit, so nearby inputs
+     * spread over the whole 64-bit range
+     * @param h Value to mix
+     * @return Mixed value
+     */
+    public static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,54 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update); from here on migrations own it.
+
+CREATE TABLE users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name        VARCHAR(100) NOT NULL,
+    email       VARCHAR(100) NOT NULL,
+    phone       VARCHAR(15),
+    role        VARCHAR(20)  NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT ck_users_role CHECK (role IN ('ADMIN', 'CUSTOMER'))
+);
+
+CREATE TABLE addresses (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id       BIGINT       NOT NULL,
+    street        VARCHAR(200) NOT NULL,
+    city          VARCHAR(100) NOT NULL,
+    state         VARCHAR(100) NOT NULL,
+    zip_code      VARCHAR(20)  NOT NULL,
+    country       VARCHAR(100) NOT NULL,
+    address_type  VARCHAR(50),
+    is_default    BOOLEAN,
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6),
+    CONSTRAINT pk_addresses PRIMARY KEY (id),
+    CONSTRAINT fk_addresses_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE products (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name         VARCHAR(100)   NOT NULL,
+    description  VARCHAR(1000),
+    price        NUMERIC(10, 2) NOT NULL,
+    quantity     INTEGER        NOT NULL,
+    category     VARCHAR(50),
+    sku          VARCHAR(20),
+    is_active    BOOLEAN,
+    created_at   TIMESTAMP(6)   NOT NULL,
+    updated_at   TIMESTAMP(6),
+    CONSTRAINT pk_products PRIMARY KEY (id),
+    CONSTRAINT uk_products_name UNIQUE (name)
+);
+
+CREATE INDEX idx_product_name ON products (name);
+CREATE INDEX idx_product_category ON products (category);
+
+CREATE TABLE inventory_checkpoints (
+    journal        VARCHAR(50) NOT NULL,
+    last_sequence  BIGINT      NOT NULL,
+    CONSTRAINT pk_inventory_checkpoints PRIMARY KEY (journal)
+);
@@ -0,0 +1,21 @@
+-- Indexes for the address read paths. Every list is keyset-paginated on id,
+-- so id trails each index and the page is read in index order without a sort.
+
+-- findByUserId, countByUserId, and the foreign key
+CREATE INDEX idx_addresses_user ON addresses (user_id, id);
+
+-- findByUserIdAndIsDefaultTrue (default address lookup and switch)
+CREATE INDEX idx_addresses_user_default ON addresses (user_id, is_default);
+
+-- findByUserIdAndAddressType
+CREATE INDEX idx_addresses_user_type ON addresses (user_id, address_type, id);
+
+-- City, state and country are matched case-insensitively. An index on the raw column can't
+-- serve UPPER(city) = ?, so keep upper-cased copies as generated columns and index those.
+ALTER TABLE addresses ADD COLUMN city_key VARCHAR(100) GENERATED ALWAYS AS (UPPER(city));
+ALTER TABLE addresses ADD COLUMN state_key VARCHAR(100) GENERATED ALWAYS AS (UPPER(state));
+ALTER TABLE addresses ADD COLUMN country_key VARCHAR(100) GENERATED ALWAYS AS (UPPER(country));
+
+CREATE INDEX idx_addresses_city ON addresses (city_key, id);
+CREATE INDEX idx_addresses_state ON addresses (state_key, id);
+CREATE INDEX idx_addresses_country ON addresses (country_key, id);
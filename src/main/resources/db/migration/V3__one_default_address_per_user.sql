@@ -0,0 +1,16 @@
+-- At most one default address per user, enforced by the database.
+-- default_owner holds user_id only on the default row (NULL otherwise), so a UNIQUE constraint
+-- on it behaves like a partial unique index on (user_id) WHERE is_default.
+
+UPDATE addresses SET is_default = FALSE WHERE is_default IS NULL;
+
+-- Keep the newest default where earlier races left several
+UPDATE addresses SET is_default = FALSE
+WHERE is_default = TRUE
+  AND id NOT IN (SELECT MAX(id) FROM addresses WHERE is_default = TRUE GROUP BY user_id);
+
+ALTER TABLE addresses ALTER COLUMN is_default SET DEFAULT FALSE;
+ALTER TABLE addresses ALTER COLUMN is_default SET NOT NULL;
+
+ALTER TABLE addresses ADD COLUMN default_owner BIGINT GENERATED ALWAYS AS (CASE WHEN is_default THEN user_id END);
+ALTER TABLE addresses ADD CONSTRAINT uk_addresses_default_owner UNIQUE (default_owner);
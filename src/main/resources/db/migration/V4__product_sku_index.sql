@@ -0,0 +1,2 @@
+-- SKU uniqueness checks and the keyset scan that builds the SKU Bloom filter
+CREATE INDEX idx_product_sku ON products (sku);
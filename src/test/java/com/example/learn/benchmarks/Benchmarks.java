@@ -0,0 +1,44 @@
+package com.example.learn.benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Minimal timing and allocation harness for the @Tag("benchmark") tests.
+ * Allocation is read from the current thread's allocation counter, so the measured
+ * operation must run on the calling thread.
+ */
+final class Benchmarks {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Benchmarks() {
+    }
+
+    record Result(String name, double microsPerOp, long bytesPerOp) {
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %10.1f us/op %12d B/op", name, microsPerOp, bytesPerOp);
+        }
+    }
+
+    /**
+     * Run the operation warmup times, then time and count allocations over iterations runs
+     */
+    static Result measure(String name, int warmup, int iterations, Runnable operation) {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        Result result = new Result(name, elapsed / 1000.0 / iterations, bytes / iterations);
+        System.out.println(result);
+        return result;
+    }
+}
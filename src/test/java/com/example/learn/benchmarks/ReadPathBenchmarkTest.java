@@ -0,0 +1,121 @@
+package com.example.learn.benchmarks;
+
+import com.example.learn.mappers.AddressMapper;
+import com.example.learn.mappers.ProductMapper;
+import com.example.learn.models.Address;
+import com.example.learn.models.Product;
+import com.example.learn.repositories.AddressRepository;
+import com.example.learn.repositories.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Entity-then-map reads versus constructor-expression projections for a 200-row page.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadPathBenchmarkTest {
+
+    private static final int PAGE = 200;
+    private static final int WARMUP = 300;
+    private static final int ITERATIONS = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private AddressMapper addressMapper;
+
+    private TransactionTemplate readOnly;
+
+    @BeforeAll
+    void seed() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, quantity, category, sku, is_active, "
+                        + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                IntStream.range(0, 2000).mapToObj(i -> new Object[]{
+                        "Bench product " + i, "Description of bench product " + i, 10 + i % 90, i % 50,
+                        "bench", "BENCH-" + i}).toList());
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, role, created_at, updated_at) "
+                        + "VALUES (?, ?, 'CUSTOMER', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                IntStream.range(0, PAGE).mapToObj(i -> new Object[]{
+                        "Bench user " + i, "bench" + i + "@example.com"}).toList());
+        jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, address_type, is_default, "
+                + "user_id, created_at, updated_at) SELECT 'Main St', 'Springfield', 'IL', '62701', 'USA', 'HOME', false, "
+                + "id, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM users WHERE email LIKE 'bench%'");
+    }
+
+    @Test
+    void productPage() {
+        Benchmarks.Result entity = Benchmarks.measure("products: entity + mapper", WARMUP, ITERATIONS, () ->
+                read(() -> entityManager.createQuery("SELECT p FROM Product p WHERE p.id > 0 ORDER BY p.id", Product.class)
+                        .setMaxResults(PAGE)
+                        .getResultList().stream()
+                        .map(productMapper::toResponse)
+                        .toList()));
+        Benchmarks.Result projection = Benchmarks.measure("products: constructor projection", WARMUP, ITERATIONS, () ->
+                read(() -> productRepository.findResponsesAfter(0L, Limit.of(PAGE))));
+
+        assertThat(projection.bytesPerOp()).isLessThan(entity.bytesPerOp());
+    }
+
+    @Test
+    void addressPage() {
+        // The entity path also pays one lazy user load per distinct user touched by the mapper
+        Benchmarks.Result entity = Benchmarks.measure("addresses: entity + mapper", WARMUP / 3, ITERATIONS / 5, () ->
+                read(() -> entityManager.createQuery("SELECT a FROM Address a WHERE a.id > 0 ORDER BY a.id", Address.class)
+                        .setMaxResults(PAGE)
+                        .getResultList().stream()
+                        .map(addressMapper::toResponse)
+                        .toList()));
+        Benchmarks.Result projection = Benchmarks.measure("addresses: constructor projection", WARMUP, ITERATIONS, () ->
+                read(() -> addressRepository.findResponsesAfter(0L, Limit.of(PAGE))));
+
+        assertThat(projection.microsPerOp()).isLessThan(entity.microsPerOp());
+    }
+
+    /**
+     * One read-only transaction per operation, as a request would get
+     */
+    private void read(Supplier<List<?>> query) {
+        List<?> rows = readOnly.execute(status -> query.get());
+        assertThat(rows).isNotEmpty();
+    }
+}
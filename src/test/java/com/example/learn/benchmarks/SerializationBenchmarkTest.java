@@ -0,0 +1,87 @@
+package com.example.learn.benchmarks;
+
+import com.example.learn.dto.ApiResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.dto.PreSerialized;
+import com.example.learn.dto.ProductResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost of writing a product detail response, and of JSON versus the binary formats
+ * (CBOR, Smile) for a listing page.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class SerializationBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private static final int PAGE = 100;
+
+    private final ObjectMapper jsonMapper = JsonMapper.builder().build();
+    private final ObjectMapper cborMapper = CBORMapper.builder().build();
+    private final ObjectMapper smileMapper = SmileMapper.builder().build();
+
+    @Test
+    void productDetail() {
+        ProductResponse product = product();
+        PreSerialized<ProductResponse> cached = PreSerialized.of(product, jsonMapper.writeValueAsString(product));
+
+        Benchmarks.Result plain = Benchmarks.measure("json: envelope + product", WARMUP, ITERATIONS, () ->
+                jsonMapper.writeValueAsBytes(ApiResponse.success("Product retrieved successfully", product)));
+        Benchmarks.Result spliced = Benchmarks.measure("json: envelope + cached bytes", WARMUP, ITERATIONS, () ->
+                jsonMapper.writeValueAsBytes(ApiResponse.success("Product retrieved successfully", cached)));
+
+        assertThat(spliced.microsPerOp()).isLessThan(plain.microsPerOp());
+    }
+
+    @Test
+    void productPageFormats() {
+        CursorPage<ProductResponse> page = new CursorPage<>(
+                IntStream.range(0, PAGE).mapToObj(i -> product()).toList(), "aWQ6MTAw");
+        ApiResponse<List<ProductResponse>> response = ApiResponse.page("Products retrieved successfully", page);
+
+        int jsonSize = format("json", jsonMapper, response);
+        int cborSize = format("cbor", cborMapper, response);
+        int smileSize = format("smile", smileMapper, response);
+
+        assertThat(cborSize).isLessThan(jsonSize);
+        assertThat(smileSize).isLessThan(jsonSize);
+    }
+
+    /**
+     * Time writing and reading one page in a format
+     * @return Payload size in bytes
+     */
+    private int format(String name, ObjectMapper mapper, ApiResponse<List<ProductResponse>> response) {
+        byte[] payload = mapper.writeValueAsBytes(response);
+        TypeReference<ApiResponse<List<ProductResponse>>> type = new TypeReference<>() {
+        };
+        Benchmarks.measure(name + ": write page", WARMUP / 20, ITERATIONS / 20, () -> mapper.writeValueAsBytes(response));
+        Benchmarks.measure(name + ": read page", WARMUP / 20, ITERATIONS / 20, () -> mapper.readValue(payload, type));
+        System.out.printf("%-40s %10d B%n", name + ": payload", payload.length);
+        assertThat(mapper.readValue(payload, type).getData()).hasSize(PAGE);
+        return payload.length;
+    }
+
+    static ProductResponse product() {
+        LocalDateTime now = LocalDateTime.now();
+        return new ProductResponse(42L, "Ergonomic office chair", "Mesh back, adjustable lumbar support, "
+                + "4D armrests and a synchronised tilt mechanism. ".repeat(8), new BigDecimal("249.99"), 37,
+                "furniture", "CHAIR-ERGO-042", true, now, now);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.learn.benchmarks;
+
+import com.example.learn.LearnApplication;
+import com.example.learn.config.PinningDiagnosticsProperties;
+import com.example.learn.diagnostics.PinnedThreadMonitor;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and latency of a JDBC-bound endpoint under many concurrent clients, with Tomcat on
+ * its platform-thread pool versus virtual threads. Each mode gets its own application and database.
+ * The request pool is kept small and the connection pool large, so the platform mode queues on
+ * request threads while the virtual mode only waits for connections. The settings go in as
+ * command-line arguments, since default properties lose to application.properties, and each run
+ * checks that its requests really ran on the thread kind it claims.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class ThreadModeLoadBenchmarkTest {
+
+    private static final int CLIENTS = 256;
+    private static final int USERS = 2000;
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASURE = Duration.ofSeconds(10);
+
+    private record Load(String mode, long requests, long errors, double perSecond, double p50Millis,
+                        double p99Millis, long pinned) {
+
+        @Override
+        public String toString() {
+            return String.format("%-10s %8d req %6d err %9.0f req/s  p50 %7.2f ms  p99 %7.2f ms  %d pinned",
+                    mode, requests, errors, perSecond, p50Millis, p99Millis, pinned);
+        }
+    }
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        Load platform = run(false);
+        System.out.println(platform);
+        assertThat(platform.errors()).isZero();
+
+        Load virtual = run(true);
+        System.out.println(virtual);
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private Load run(boolean virtual) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        LongAdder onVirtual = new LongAdder();
+        LongAdder onPlatform = new LongAdder();
+        Filter threadKind = (request, response, chain) -> {
+            (Thread.currentThread().isVirtual() ? onVirtual : onPlatform).increment();
+            chain.doFilter(request, response);
+        };
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LearnApplication.class)
+                .initializers(app -> app.getBeanFactory().registerSingleton("threadKindFilter", threadKind))
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                        "--spring.datasource.hikari.maximum-pool-size=64",
+                        "--server.tomcat.threads.max=32",
+                        "--app.threads.pinning-diagnostics.enabled=true",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.example.learn=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.springframework.web=WARN")) {
+            assertThat(context.getEnvironment().getProperty("spring.datasource.url"))
+                    .isEqualTo("jdbc:h2:mem:load-" + mode);
+            assertThat(context.getBean(PinningDiagnosticsProperties.class).isEnabled()).isTrue();
+            seed(context.getBean(JdbcTemplate.class));
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            long[] userIds = context.getBean(JdbcTemplate.class)
+                    .queryForList("SELECT id FROM users", Long.class).stream().mapToLong(Long::longValue).toArray();
+
+            drive(port, userIds, WARMUP);
+            List<long[]> latencies = drive(port, userIds, MEASURE);
+            assertThat(virtual ? onVirtual.sum() : onPlatform.sum()).isPositive();
+            assertThat(virtual ? onPlatform.sum() : onVirtual.sum()).isZero();
+            return summarise(mode, latencies, context.getBean(PinnedThreadMonitor.class).pinnedCount());
+        }
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, role, created_at, updated_at) "
+                        + "VALUES (?, ?, 'CUSTOMER', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                IntStream.range(0, USERS).mapToObj(i -> new Object[]{"Load user " + i, "load" + i + "@example.com"})
+                        .toList());
+        for (int copy = 0; copy < 3; copy++) {
+            jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, address_type, "
+                    + "is_default, user_id, created_at, updated_at) SELECT 'Main St', 'Springfield', 'IL', '62701', "
+                    + "'USA', 'HOME', false, id, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM users "
+                    + "WHERE email LIKE 'load%'");
+        }
+    }
+
+    /**
+     * Keep CLIENTS requests in flight for the duration
+     * @return Per client: latencies in nanoseconds, with the error count in the last slot
+     */
+    private List<long[]> drive(int port, long[] userIds, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                long errors = 0;
+                while (System.nanoTime() < deadline) {
+                    long id = userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+                    HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/api/users/" + id + "/profile")).build();
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    long elapsed = System.nanoTime() - start;
+                    if (response.statusCode() != 200) {
+                        errors++;
+                        continue;
+                    }
+                    if (n == samples.length - 1) {
+                        samples = Arrays.copyOf(samples, samples.length * 2);
+                    }
+                    samples[n++] = elapsed;
+                }
+                long[] result = Arrays.copyOf(samples, n + 1);
+                result[n] = errors;
+                return result;
+            }));
+        }
+        List<long[]> results = new ArrayList<>(CLIENTS);
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        clients.shutdown();
+        return results;
+    }
+
+    private Load summarise(String mode, List<long[]> perClient, long pinned) {
+        long errors = 0;
+        int total = 0;
+        for (long[] client : perClient) {
+            errors += client[client.length - 1];
+            total += client.length - 1;
+        }
+        long[] all = new long[total];
+        int i = 0;
+        for (long[] client : perClient) {
+            System.arraycopy(client, 0, all, i, client.length - 1);
+            i += client.length - 1;
+        }
+        Arrays.sort(all);
+        double perSecond = total / (MEASURE.toNanos() / 1e9);
+        return new Load(mode, total, errors, perSecond, percentile(all, 0.50), percentile(all, 0.99), pinned);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
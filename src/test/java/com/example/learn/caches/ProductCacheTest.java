@@ -0,0 +1,142 @@
+package com.example.learn.caches;
+
+import com.example.learn.config.ProductCacheProperties;
+import com.example.learn.dto.ApiResponse;
+import com.example.learn.dto.CacheStatsResponse;
+import com.example.learn.dto.PreSerialized;
+import com.example.learn.dto.ProductResponse;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final ProductCache productCache = new ProductCache(new ProductCacheProperties(), objectMapper);
+
+    @Test
+    void serializedProduct_ShouldWriteSameEnvelopeAsPlainProduct() {
+        ProductResponse product = product("Desk lamp");
+
+        PreSerialized<ProductResponse> cached = productCache.getSerializedById(1L, id -> product).orElseThrow();
+        ApiResponse<Object> plain = ApiResponse.success("Product retrieved successfully", product);
+        ApiResponse<Object> spliced = ApiResponse.success("Product retrieved successfully", cached);
+        spliced.setTimestamp(plain.getTimestamp());
+
+        assertThat(objectMapper.writeValueAsString(spliced)).isEqualTo(objectMapper.writeValueAsString(plain));
+    }
+
+    @Test
+    void serializedProduct_ShouldBeWrittenAsValueInBinaryFormats() {
+        ProductResponse product = product("Desk lamp");
+        ObjectMapper cborMapper = CBORMapper.builder().build();
+
+        PreSerialized<ProductResponse> cached = productCache.getSerializedById(1L, id -> product).orElseThrow();
+
+        assertThat(cborMapper.writeValueAsBytes(cached)).isEqualTo(cborMapper.writeValueAsBytes(product));
+    }
+
+    @Test
+    void evict_ShouldDropSerializedProduct() {
+        AtomicInteger loads = new AtomicInteger();
+
+        productCache.getSerializedById(1L, id -> product("Desk lamp " + loads.incrementAndGet()));
+        productCache.getSerializedById(1L, id -> product("Desk lamp " + loads.incrementAndGet()));
+        productCache.evict(1L);
+        PreSerialized<ProductResponse> reloaded =
+                productCache.getSerializedById(1L, id -> product("Desk lamp " + loads.incrementAndGet())).orElseThrow();
+
+        assertThat(loads).hasValue(2);
+        assertThat(reloaded.getJson().getValue()).contains("\"name\":\"Desk lamp 2\"");
+    }
+
+    @Test
+    void getByName_ShouldNotServeRenamedProductUnderOldName() {
+        productCache.getByName("Desk lamp", name -> product(name));
+        productCache.evict(1L);
+        productCache.getById(1L, id -> product("Floor lamp"));
+
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(productCache.getByName("Desk lamp", name -> {
+            loads.incrementAndGet();
+            return null;
+        })).isEmpty();
+        assertThat(loads).hasValue(1);
+        assertThat(productCache.getByName("Floor lamp", name -> product(name))).get()
+                .extracting(ProductResponse::getName).isEqualTo("Floor lamp");
+    }
+
+    @Test
+    void getBySku_ShouldRevalidateAgainstCachedProduct() {
+        productCache.getBySku("LAMP-1", sku -> product("Desk lamp"));
+        productCache.evict(1L);
+        productCache.getById(1L, id -> product("Desk lamp", "LAMP-2"));
+
+        assertThat(productCache.getBySku("LAMP-1", sku -> null)).isEmpty();
+        assertThat(productCache.getBySku("LAMP-2", sku -> product("Desk lamp", sku))).get()
+                .extracting(ProductResponse::getSku).isEqualTo("LAMP-2");
+    }
+
+    @Test
+    void getByName_ShouldNotKeepRowLoadedBeforeAConcurrentEviction() {
+        // The writer's after-commit eviction lands while the name query is still running
+        productCache.getByName("Desk lamp", name -> {
+            ProductResponse stale = product(name);
+            productCache.evict(1L);
+            return stale;
+        });
+
+        assertThat(productCache.getById(1L, id -> product("Floor lamp"))).get()
+                .extracting(ProductResponse::getName).isEqualTo("Floor lamp");
+    }
+
+    @Test
+    void getAllById_ShouldNotKeepRowsLoadedBeforeAConcurrentEviction() {
+        Map<Long, ProductResponse> loaded = productCache.getAllById(List.of(1L), missing -> {
+            ProductResponse stale = product("Desk lamp");
+            productCache.evict(1L);
+            return Map.of(1L, stale);
+        });
+
+        assertThat(loaded).containsOnlyKeys(1L);
+        assertThat(productCache.getById(1L, id -> product("Floor lamp"))).get()
+                .extracting(ProductResponse::getName).isEqualTo("Floor lamp");
+        assertThat(productCache.getAllById(List.of(1L, 2L), missing -> Map.of())).containsOnlyKeys(1L);
+    }
+
+    @Test
+    void stats_ShouldCountHitsAndMissesPerKey() {
+        productCache.getById(1L, id -> product("Desk lamp"));
+        productCache.getById(1L, id -> product("Desk lamp"));
+        productCache.getById(2L, id -> null);
+        productCache.getByName("Desk lamp", name -> product(name));
+
+        Map<String, CacheStatsResponse> stats = productCache.stats();
+
+        assertThat(stats).containsOnlyKeys("id", "name", "sku", "json");
+        assertThat(stats.get("id").getHitCount()).isEqualTo(1);
+        assertThat(stats.get("id").getMissCount()).isEqualTo(2);
+        assertThat(stats.get("id").getEstimatedSize()).isEqualTo(1);
+        assertThat(stats.get("name").getMissCount()).isEqualTo(1);
+        assertThat(stats.get("sku").getEstimatedSize()).isZero();
+    }
+
+    private static ProductResponse product(String name) {
+        return product(name, "LAMP-1");
+    }
+
+    private static ProductResponse product(String name, String sku) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ProductResponse(1L, name, "Adjustable", new BigDecimal("19.99"), 5, "home", sku,
+                true, now, now);
+    }
+}
@@ -2,19 +2,26 @@ package com.example.learn.controllers;
 
 import com.example.learn.dto.AddressRequest;
 import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.services.AddressImportService;
 import com.example.learn.services.AddressService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -26,9 +33,12 @@ class AddressControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
-    @MockBean
+    @MockitoBean
     private AddressService addressService;
 
+    @MockitoBean
+    private AddressImportService addressImportService;
+
     private AddressResponse addressResponse;
     private List<AddressResponse> addressResponseList;
 
@@ -53,13 +63,24 @@ class AddressControllerTest {
 
     @Test
     void getAllAddresses_ShouldReturnAddressList() throws Exception {
-        when(addressService.findAll()).thenReturn(addressResponseList);
+        when(addressService.findAll(null, null)).thenReturn(new CursorPage<>(addressResponseList, null));
 
         mockMvc.perform(get("/api/addresses"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Addresses retrieved successfully"))
-                .andExpect(jsonPath("$.data").isArray());
+                .andExpect(jsonPath("$.data").isArray())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getAllAddresses_WithNextPage_ShouldReturnNextCursor() throws Exception {
+        when(addressService.findAll("aWQ6MQ", 1)).thenReturn(new CursorPage<>(addressResponseList, "aWQ6Mg"));
+
+        mockMvc.perform(get("/api/addresses").param("cursor", "aWQ6MQ").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isArray())
+                .andExpect(jsonPath("$.nextCursor").value("aWQ6Mg"));
     }
 
     @Test
@@ -73,9 +94,58 @@ class AddressControllerTest {
                 .andExpect(jsonPath("$.data.street").value("123 Main St"));
     }
 
+    @Test
+    void getAddressById_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        when(addressService.findById(1L)).thenReturn(addressResponse);
+
+        String etag = mockMvc.perform(get("/api/addresses/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/addresses/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        addressResponse.setUpdatedAt(addressResponse.getUpdatedAt().plusSeconds(1));
+        mockMvc.perform(get("/api/addresses/1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id").value(1));
+    }
+
+    @Test
+    void getAllAddresses_WithMatchingETag_ShouldReturnNotModifiedUntilPageChanges() throws Exception {
+        when(addressService.findAll(null, null)).thenReturn(new CursorPage<>(addressResponseList, null));
+
+        String etag = mockMvc.perform(get("/api/addresses"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/addresses").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        when(addressService.findAll(null, null)).thenReturn(new CursorPage<>(List.of(), null));
+        mockMvc.perform(get("/api/addresses").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getAddressById_WithCborAccept_ShouldReturnCbor() throws Exception {
+        when(addressService.findById(1L)).thenReturn(addressResponse);
+
+        byte[] body = mockMvc.perform(get("/api/addresses/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode response = CBORMapper.builder().build().readTree(body);
+        assertThat(response.get("data").get("street").asString()).isEqualTo("123 Main St");
+    }
+
     @Test
     void getAddressesByUserId_ShouldReturnUserAddresses() throws Exception {
-        when(addressService.findByUserId(1L)).thenReturn(addressResponseList);
+        when(addressService.findByUserId(1L, null, null)).thenReturn(new CursorPage<>(addressResponseList, null));
 
         mockMvc.perform(get("/api/addresses/user/1"))
                 .andExpect(status().isOk())
@@ -83,6 +153,21 @@ class AddressControllerTest {
                 .andExpect(jsonPath("$.data").isArray());
     }
 
+    @Test
+    void getAddressesByCity_WithFields_ShouldReturnOnlyThoseFields() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("city", "New York");
+        when(addressService.findFieldsByCity("city", "new york", null, null))
+                .thenReturn(new CursorPage<>(List.of(row), null));
+
+        mockMvc.perform(get("/api/addresses/city/new york").param("fields", "city"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(jsonPath("$.data[0].city").value("New York"))
+                .andExpect(jsonPath("$.data[0].street").doesNotExist());
+    }
+
     @Test
     void createAddress_ShouldReturnCreatedAddress() throws Exception {
         String addressJson = """
@@ -0,0 +1,75 @@
+package com.example.learn.controllers;
+
+import com.example.learn.dto.ProductRequest;
+import com.example.learn.services.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.springframework.web=INFO"
+})
+@AutoConfigureMockMvc
+class ProductExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportProducts_ShouldStreamOneJsonObjectPerRow() throws Exception {
+        // More rows than one flush interval, so the export spans several flushes
+        for (int i = 0; i < 520; i++) {
+            productService.createProduct(new ProductRequest("Export " + System.nanoTime(), "Line " + i,
+                    new BigDecimal("3.50"), i, "export", null, true));
+        }
+
+        MvcResult started = mockMvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        List<Long> ids = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode product = objectMapper.readTree(line);
+            assertThat(product.isObject()).isTrue();
+            assertThat(product.has("name")).isTrue();
+            ids.add(product.get("id").asLong());
+        }
+        assertThat(ids).hasSize(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class));
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.RollupProperties;
+import com.example.learn.dto.AddressGeoCount;
+import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.AddressRollupResponse;
+import com.example.learn.events.AddressChangedEvent;
+import com.example.learn.repositories.AddressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AddressGeoCountersTest {
+
+    private static final List<AddressGeoCount> ROWS = List.of(
+            new AddressGeoCount("USA", "CA", "LOS ANGELES", 3),
+            new AddressGeoCount("USA", "CA", "SAN DIEGO", 1),
+            new AddressGeoCount("USA", "NY", "NEW YORK", 2)
+    );
+
+    private AddressRepository addressRepository;
+    private AddressGeoCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        addressRepository = mock(AddressRepository.class);
+        when(addressRepository.countByGeography()).thenReturn(ROWS);
+        counters = new AddressGeoCounters(addressRepository, new RollupProperties(),
+                TransactionOperations.withoutTransaction());
+        counters.rebuild();
+    }
+
+    @Test
+    void snapshot_ShouldRollCitiesUpToStatesAndCountries() {
+        AddressRollupResponse all = counters.snapshot(null, null);
+        assertThat(all.getCount()).isEqualTo(6);
+        assertThat(all.getRegions().get("USA").getRegions().get("CA").getCount()).isEqualTo(4);
+
+        AddressRollupResponse california = counters.snapshot("usa", "ca");
+        assertThat(california.getRegions()).containsOnlyKeys("LOS ANGELES", "SAN DIEGO");
+        assertThat(california.getRegions().get("SAN DIEGO").getRegions()).isNull();
+    }
+
+    @Test
+    void onAddressChanged_ShouldMoveAddressBetweenRegions() {
+        AddressResponse before = address("San Diego", "CA");
+        AddressResponse after = address("Buffalo", "NY");
+
+        counters.onAddressChanged(AddressChangedEvent.updated(before, after));
+
+        assertThat(counters.snapshot("USA", "CA").getRegions()).doesNotContainKey("SAN DIEGO");
+        assertThat(counters.snapshot("USA", "NY").getRegions().get("BUFFALO").getCount()).isEqualTo(1);
+        assertThat(counters.snapshot(null, null).getCount()).isEqualTo(6);
+    }
+
+    @Test
+    void reconcile_ShouldNotCountCommitTwiceWhenItsDeltaIsPending() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counters.onAddressChanged(AddressChangedEvent.created(address("Fresno", "CA")));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            // Committed: a grouped count from here on includes the new address
+            List<AddressGeoCount> committed = new ArrayList<>(ROWS);
+            committed.add(new AddressGeoCount("USA", "CA", "FRESNO", 1));
+            when(addressRepository.countByGeography()).thenReturn(committed);
+
+            Future<?> reconcile = executor.submit(counters::reconcile);
+            assertThatThrownBy(() -> reconcile.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            reconcile.get(5, TimeUnit.SECONDS);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+            executor.shutdown();
+        }
+
+        assertThat(counters.snapshot(null, null).getCount()).isEqualTo(7);
+        assertThat(counters.snapshot("USA", "CA").getRegions().get("FRESNO").getCount()).isEqualTo(1);
+    }
+
+    private static AddressResponse address(String city, String state) {
+        AddressResponse address = new AddressResponse();
+        address.setCity(city);
+        address.setState(state);
+        address.setCountry("usa");
+        return address;
+    }
+}
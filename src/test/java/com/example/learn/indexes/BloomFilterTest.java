@@ -0,0 +1,38 @@
+package com.example.learn.indexes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    void mightContain_ShouldNeverMissAnAddedKey() {
+        BloomFilter filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_ShouldStayNearTargetFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("SKU-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (filter.mightContain("OTHER-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / KEYS).isLessThan(0.02);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.learn.indexes;
+
+import com.example.learn.dto.ProductFacetsResponse;
+import com.example.learn.dto.ProductRequest;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.services.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The counters must agree with the grouped count after any mix of writes, including writes that
+ * commit while a recount is running. Other test contexts share the database, so each test
+ * starts from a fresh recount.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO"
+})
+class ProductFacetCountersTest {
+
+    @Autowired
+    private ProductFacetCounters counters;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        counters.rebuild();
+    }
+
+    @Test
+    void fromDatabase_ShouldGroupByCategoryStatusAndPriceBucket() {
+        String category = category();
+        create(category, "5.00", 1);
+        create(category, "75.00", 0);
+        ProductResponse inactive = create(category.toUpperCase(), "750.00", 3);
+        productService.deactivateProduct(inactive.getId());
+
+        ProductFacetsResponse facets = counters.fromDatabase();
+
+        assertThat(facets.getCategories()).containsEntry(category, 3L);
+        assertThat(facets.getPriceBuckets()).containsOnlyKeys("0-10", "10-50", "50-100", "100-500", "500+");
+        assertThat(facets.getTotal()).isEqualTo(productService.count());
+        assertThat(facets.getStatus().get("active")).isEqualTo(productService.countActive());
+        assertThat(facets.getStatus().get("inStock") + facets.getStatus().get("outOfStock"))
+                .isEqualTo(facets.getStatus().get("active"));
+    }
+
+    @Test
+    void snapshot_ShouldFollowProductWrites() {
+        String category = category();
+        ProductResponse moved = create(category, "5.00", 1);
+        ProductResponse deactivated = create(category, "20.00", 2);
+        ProductResponse deleted = create(category, "600.00", 0);
+
+        productService.updateProduct(moved.getId(), new ProductRequest(moved.getName(), null,
+                new BigDecimal("150.00"), 1, category + "-b", null, true));
+        productService.deactivateProduct(deactivated.getId());
+        productService.deleteProduct(deleted.getId());
+
+        assertThat(counters.snapshot()).isEqualTo(counters.fromDatabase());
+        assertThat(counters.snapshot().getCategories()).containsEntry(category, 1L).containsEntry(category + "-b", 1L);
+    }
+
+    @Test
+    void stockChange_ShouldOnlyRecountWhenCrossingZero() {
+        ProductResponse product = create(category(), "5.00", 2);
+        // A row the counters never heard of shows whether a read recounted
+        String unseen = category();
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity, category, is_active, created_at, updated_at) "
+                + "VALUES (?, 1.00, 1, ?, true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", unseen, unseen);
+
+        productService.decrementQuantity(product.getId(), 1);
+        assertThat(counters.snapshot().getCategories()).doesNotContainKey(unseen);
+
+        productService.decrementQuantity(product.getId(), 1);
+        assertThat(counters.snapshot().getCategories()).containsEntry(unseen, 1L);
+        assertThat(counters.snapshot()).isEqualTo(counters.fromDatabase());
+    }
+
+    @Test
+    void rebuild_ShouldNotDoubleCountWritesCommittedDuringRecount() throws Exception {
+        String category = category();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            futures.add(writers.submit(() -> {
+                for (int i = 0; i < 25; i++) {
+                    ProductResponse product = create(category, "15.00", 1);
+                    if (i % 3 == 0) {
+                        productService.deactivateProduct(product.getId());
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> recounts = writers.submit(() -> {
+            while (writing.get()) {
+                counters.rebuild();
+            }
+        });
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        writing.set(false);
+        recounts.get();
+        writers.shutdown();
+
+        assertThat(counters.snapshot().getCategories()).containsEntry(category, 100L);
+        assertThat(counters.snapshot()).isEqualTo(counters.fromDatabase());
+    }
+
+    private ProductResponse create(String category, String price, int quantity) {
+        String name = "Facet " + System.nanoTime();
+        return productService.createProduct(new ProductRequest(name, null, new BigDecimal(price), quantity, category,
+                null, true));
+    }
+
+    private static String category() {
+        return "facet-" + Long.toString(System.nanoTime(), 36);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.SearchProperties;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductNameIndexTest {
+
+    private ProductRepository productRepository;
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findResponsesAfter(eq(0L), any())).thenReturn(List.of(
+                response(1L, "Wireless Mouse Pad"),
+                response(2L, "Mouse"),
+                response(3L, "Gaming Mouse"),
+                response(4L, "Keyboard")
+        ));
+        index = new ProductNameIndex(productRepository, new SearchProperties(),
+                TransactionOperations.withoutTransaction());
+        index.rebuild();
+    }
+
+    @Test
+    void search_ShouldRankExactThenPrefixThenWordMatches() {
+        assertThat(index.search("MOUSE", 10)).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void search_ShouldApplyLimit() {
+        assertThat(index.search("mouse", 2)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void search_ShouldVerifyCandidatesAgainstFullKeyword() {
+        // "mouse pad" shares trigrams with every mouse, but only one name contains it
+        assertThat(index.search("mouse pad", 10)).containsExactly(1L);
+        assertThat(index.search("keypad", 10)).isEmpty();
+    }
+
+    @Test
+    void search_ShouldMatchShortKeywords() {
+        assertThat(index.search("ke", 10)).containsExactly(4L);
+    }
+
+    @Test
+    void onProductChanged_ShouldReindexRenamedAndDeletedProducts() {
+        index.onProductChanged(ProductChangedEvent.updated(response(4L, "Keyboard"), response(4L, "Mechanical Keyboard")));
+        index.onProductChanged(ProductChangedEvent.deleted(response(2L, "Mouse")));
+
+        assertThat(index.search("mechanical", 10)).containsExactly(4L);
+        assertThat(index.search("mouse", 10)).containsExactly(3L, 1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void reconcile_ShouldReplaceRenameAppliedOutOfCommitOrder() {
+        // Two renames of one product committed as "Trackball" then "Trackpad", but their
+        // listeners ran the other way round
+        index.onProductChanged(ProductChangedEvent.updated(response(2L, "Mouse"), response(2L, "Trackpad")));
+        index.onProductChanged(ProductChangedEvent.updated(response(2L, "Trackpad"), response(2L, "Trackball")));
+        when(productRepository.findResponsesAfter(eq(0L), any())).thenReturn(List.of(
+                response(1L, "Wireless Mouse Pad"),
+                response(2L, "Trackpad"),
+                response(3L, "Gaming Mouse"),
+                response(4L, "Keyboard")
+        ));
+
+        index.reconcile();
+
+        assertThat(index.search("track", 10)).containsExactly(2L);
+        assertThat(index.search("trackball", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    private static ProductResponse response(Long id, String name) {
+        ProductResponse response = new ProductResponse();
+        response.setId(id);
+        response.setName(name);
+        return response;
+    }
+}
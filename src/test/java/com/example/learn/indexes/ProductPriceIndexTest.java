@@ -0,0 +1,126 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.SearchProperties;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductPriceIndexTest {
+
+    private ProductRepository productRepository;
+    private ProductPriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findActiveResponsesAfter(eq(0L), any())).thenReturn(List.of(
+                response(1L, "25.00", true),
+                response(2L, "9.99", true),
+                response(3L, "25.00", true),
+                response(4L, "100.00", true),
+                response(5L, "49.50", true)
+        ));
+        index = new ProductPriceIndex(productRepository, new SearchProperties(),
+                TransactionOperations.withoutTransaction());
+        index.rebuild();
+    }
+
+    @Test
+    void range_ShouldReturnInclusiveRangeByPriceThenId() {
+        assertThat(ids(index.range(new BigDecimal("9.99"), new BigDecimal("49.50"),
+                ProductPriceIndex.Order.PRICE_ASC, null, 10)))
+                .containsExactly(2L, 1L, 3L, 5L);
+        assertThat(ids(index.range(new BigDecimal("10"), new BigDecimal("100"),
+                ProductPriceIndex.Order.PRICE_DESC, null, 10)))
+                .containsExactly(4L, 5L, 3L, 1L);
+    }
+
+    @Test
+    void range_ShouldContinueAfterPosition() {
+        List<ProductPriceIndex.Position> first = index.range(
+                BigDecimal.ZERO, new BigDecimal("1000"), ProductPriceIndex.Order.PRICE_ASC, null, 2);
+        List<ProductPriceIndex.Position> second = index.range(
+                BigDecimal.ZERO, new BigDecimal("1000"), ProductPriceIndex.Order.PRICE_ASC, first.get(1), 2);
+        List<ProductPriceIndex.Position> previous = index.range(
+                BigDecimal.ZERO, new BigDecimal("1000"), ProductPriceIndex.Order.PRICE_DESC, second.get(0), 10);
+
+        assertThat(ids(first)).containsExactly(2L, 1L);
+        assertThat(ids(second)).containsExactly(3L, 5L);
+        assertThat(ids(previous)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void range_ShouldOrderByIdWhenRequested() {
+        assertThat(ids(index.range(new BigDecimal("20"), new BigDecimal("200"), ProductPriceIndex.Order.ID,
+                new ProductPriceIndex.Position(1L, 1L), 2)))
+                .containsExactly(3L, 4L);
+    }
+
+    @Test
+    void onProductChanged_ShouldApplyRepricingDeactivationAndCreation() {
+        index.onProductChanged(ProductChangedEvent.updated(response(4L, "100.00", true), response(4L, "5.00", true)));
+        index.onProductChanged(ProductChangedEvent.updated(response(5L, "49.50", true), response(5L, "49.50", false)));
+        index.onProductChanged(ProductChangedEvent.created(response(6L, "9.99", true)));
+        index.onProductChanged(ProductChangedEvent.deleted(response(1L, "25.00", true)));
+
+        assertThat(ids(index.range(BigDecimal.ZERO, new BigDecimal("1000"), ProductPriceIndex.Order.PRICE_ASC, null, 10)))
+                .containsExactly(4L, 2L, 6L, 3L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void range_ShouldClampBoundsBeyondTheRangeOfCents() {
+        BigDecimal huge = new BigDecimal("1e30");
+
+        assertThat(ids(index.range(huge.negate(), huge, ProductPriceIndex.Order.PRICE_ASC, null, 10)))
+                .containsExactly(2L, 1L, 3L, 5L, 4L);
+        assertThat(index.range(huge, huge, ProductPriceIndex.Order.ID, null, 10)).isEmpty();
+    }
+
+    @Test
+    void reconcile_ShouldReplacePriceAppliedOutOfCommitOrder() {
+        // Two repricings of one product committed as 30.00 then 60.00, but their listeners ran
+        // the other way round
+        index.onProductChanged(ProductChangedEvent.updated(response(1L, "25.00", true), response(1L, "60.00", true)));
+        index.onProductChanged(ProductChangedEvent.updated(response(1L, "60.00", true), response(1L, "30.00", true)));
+        when(productRepository.findActiveResponsesAfter(eq(0L), any())).thenReturn(List.of(
+                response(1L, "60.00", true),
+                response(2L, "9.99", true),
+                response(3L, "25.00", true),
+                response(4L, "100.00", true),
+                response(5L, "49.50", true)
+        ));
+
+        index.reconcile();
+
+        assertThat(ids(index.range(new BigDecimal("50"), new BigDecimal("70"),
+                ProductPriceIndex.Order.PRICE_ASC, null, 10)))
+                .containsExactly(1L);
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    private static List<Long> ids(List<ProductPriceIndex.Position> positions) {
+        return positions.stream().map(ProductPriceIndex.Position::id).toList();
+    }
+
+    private static ProductResponse response(Long id, String price, boolean active) {
+        ProductResponse response = new ProductResponse();
+        response.setId(id);
+        response.setName("Product " + id);
+        response.setPrice(new BigDecimal(price));
+        response.setIsActive(active);
+        return response;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.learn.indexes;
+
+import com.example.learn.config.TypeaheadProperties;
+import com.example.learn.dto.UserResponse;
+import com.example.learn.dto.UserSuggestion;
+import com.example.learn.dto.UserTypeaheadResponse;
+import com.example.learn.events.UserChangedEvent;
+import com.example.learn.events.UsersDeletedEvent;
+import com.example.learn.models.UserRole;
+import com.example.learn.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserNameIndexTest {
+
+    private UserRepository userRepository;
+    private UserNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findResponsesAfter(eq(0L), any())).thenReturn(List.of(
+                user(1L, "Jane Smith"),
+                user(2L, "John Smithers"),
+                user(3L, "Zoë Smith-Jones"),
+                user(4L, "Adam Brown")
+        ));
+        index = new UserNameIndex(userRepository, new TypeaheadProperties(),
+                TransactionOperations.withoutTransaction());
+        index.rebuild();
+    }
+
+    @Test
+    void suggest_ShouldMatchAnyWordPrefixIgnoringCaseAndAccents() {
+        assertThat(ids(index.suggest("SMI", 10))).containsExactly(1L, 3L, 2L);
+        assertThat(ids(index.suggest("zoe", 10))).containsExactly(3L);
+        assertThat(ids(index.suggest("jo", 10))).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void suggest_ShouldRequireEveryTypedWordAndHonourLimit() {
+        assertThat(ids(index.suggest("smith jo", 10))).containsExactly(3L, 2L);
+        assertThat(ids(index.suggest("smith", 1))).containsExactly(1L);
+        assertThat(index.suggest("smith", 1).isTruncated()).isFalse();
+    }
+
+    @Test
+    void suggest_ShouldSeeCommittedWrites() {
+        index.onUserChanged(new UserChangedEvent(user(1L, "Jane Doe")));
+        index.onUserChanged(new UserChangedEvent(user(5L, "Smitty Werben")));
+        index.onUsersDeleted(new UsersDeletedEvent(List.of(2L)));
+        index.merge();
+
+        assertThat(ids(index.suggest("smit", 10))).containsExactly(3L, 5L);
+        assertThat(index.suggest("doe", 10).getSuggestions()).extracting(UserSuggestion::getName)
+                .containsExactly("Jane Doe");
+    }
+
+    @Test
+    void suggest_ShouldReadLastSnapshotUntilWritesAreMerged() {
+        index.onUserChanged(new UserChangedEvent(user(5L, "Smitty Werben")));
+        index.onUserChanged(new UserChangedEvent(user(1L, "Jane Doe")));
+
+        // The new user waits for the merge; the renamed one no longer matches its old word
+        assertThat(ids(index.suggest("smit", 10))).containsExactly(3L, 2L);
+        index.merge();
+        assertThat(ids(index.suggest("smit", 10))).containsExactly(3L, 2L, 5L);
+    }
+
+    @Test
+    void reconcile_ShouldReplaceNameAppliedOutOfCommitOrder() {
+        // Two renames of one user committed as "Adam Green" then "Adam Grey", but their
+        // listeners ran the other way round
+        index.onUserChanged(new UserChangedEvent(user(4L, "Adam Grey")));
+        index.onUserChanged(new UserChangedEvent(user(4L, "Adam Green")));
+        when(userRepository.findResponsesAfter(eq(0L), any())).thenReturn(List.of(
+                user(1L, "Jane Smith"),
+                user(2L, "John Smithers"),
+                user(3L, "Zoë Smith-Jones"),
+                user(4L, "Adam Grey")
+        ));
+
+        index.reconcile();
+
+        assertThat(index.suggest("gre", 10).getSuggestions()).extracting(UserSuggestion::getName)
+                .containsExactly("Adam Grey");
+        assertThat(ids(index.suggest("green", 10))).isEmpty();
+    }
+
+    private static List<Long> ids(UserTypeaheadResponse response) {
+        return response.getSuggestions().stream().map(UserSuggestion::getId).toList();
+    }
+
+    private static UserResponse user(Long id, String name) {
+        return new UserResponse(id, name, id + "@example.com", null, UserRole.CUSTOMER, null, null);
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.learn.inventory;
+
+import com.example.learn.config.InventoryProperties;
+import com.example.learn.dto.ProductRequest;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.events.ProductChangedEvent;
+import com.example.learn.events.ProductStockChangedEvent;
+import com.example.learn.exceptions.InsufficientStockException;
+import com.example.learn.services.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Hot products keep their stock in memory; edits saved through the entity must not write back a
+ * quantity the flush has moved, and every response must carry the in-memory stock.
+ * The flush interval is long enough that only the tests flush.
+ */
+@SpringBootTest(properties = {
+        "app.inventory.enabled=true",
+        "app.inventory.flush-interval-ms=3600000",
+        "app.inventory.journal-path=target/inventory-test-${random.uuid}.journal",
+        "app.inventory.journal-sync=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.springframework.web=INFO"
+})
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+class InventoryEngineTest {
+
+    @MockitoSpyBean
+    private InventoryEngine engine;
+
+    @Autowired
+    private InventoryProperties properties;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void deactivateProduct_ShouldKeepFlushCommittedAfterTheRead() {
+        ProductResponse product = hot(10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.deactivateProduct(product.getId());
+            CompletableFuture.runAsync(() -> {
+                productService.decrementQuantity(product.getId(), 3);
+                engine.flush();
+            }).join();
+        });
+
+        assertThat(quantity(product.getId())).isEqualTo(7).isEqualTo(engine.available(product.getId()));
+        assertThat(productService.findById(product.getId()).getIsActive()).isFalse();
+    }
+
+    @Test
+    void updateProduct_ShouldKeepFlushCommittedAfterTheRead() {
+        ProductResponse product = hot(10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), new ProductRequest(product.getName(), "Edited",
+                    product.getPrice(), 6, product.getCategory(), null, true));
+            CompletableFuture.runAsync(() -> {
+                productService.decrementQuantity(product.getId(), 4);
+                engine.flush();
+            }).join();
+        });
+        engine.flush();
+
+        // The edit moves the in-memory stock to 6 when it commits, after the decrement
+        assertThat(engine.available(product.getId())).isEqualTo(6);
+        assertThat(quantity(product.getId())).isEqualTo(6);
+        assertThat(productService.findById(product.getId()).getDescription()).isEqualTo("Edited");
+    }
+
+    @Test
+    void updateProduct_ShouldLeaveStockAloneWhenTheEditRollsBack() {
+        ProductResponse product = hot(10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), new ProductRequest(product.getName(), "Edited",
+                    product.getPrice(), 3, product.getCategory(), null, true));
+            productService.updateQuantity(product.getId(), 4);
+            status.setRollbackOnly();
+        });
+        engine.flush();
+
+        assertThat(engine.available(product.getId())).isEqualTo(10);
+        assertThat(quantity(product.getId())).isEqualTo(10);
+        assertThat(productService.findById(product.getId()).getDescription()).isNull();
+    }
+
+    @Test
+    void updateProduct_ShouldKeepTheCommittedEditWhenTheStockKeepsMoving() throws Exception {
+        ProductResponse product = hot(10);
+        doThrow(new InsufficientStockException("Stock kept changing"))
+                .when(engine).setQuantity(eq(product.getId()), anyInt());
+
+        ProductResponse updated = productService.updateProduct(product.getId(), new ProductRequest(product.getName(),
+                "Edited", product.getPrice(), 3, product.getCategory(), null, true));
+        mockMvc.perform(patch("/api/products/{id}/quantity", product.getId()).param("quantity", "4"))
+                .andExpect(status().isOk());
+
+        // The edit is committed; the response reports the stock that is actually live
+        assertThat(updated.getQuantity()).isEqualTo(10);
+        assertThat(productService.findById(product.getId()).getDescription()).isEqualTo("Edited");
+        assertThat(engine.available(product.getId())).isEqualTo(10);
+    }
+
+    @Test
+    void updateProduct_ShouldPublishTheStoredQuantityInBothSnapshots() {
+        ProductResponse product = hot(10);
+
+        ProductResponse updated = productService.updateProduct(product.getId(), new ProductRequest(product.getName(),
+                "Edited", product.getPrice(), 3, product.getCategory(), null, true));
+
+        assertThat(updated.getQuantity()).isEqualTo(3);
+        assertThat(events.stream(ProductChangedEvent.class)
+                .filter(event -> event.getPrevious() != null && event.getPrevious().getId().equals(product.getId())))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getPrevious().getQuantity()).isEqualTo(10);
+                    assertThat(event.getCurrent().getQuantity()).isEqualTo(10);
+                });
+    }
+
+    @Test
+    void flush_ShouldPublishTheStoredQuantity() {
+        ProductResponse product = hot(10);
+        ProductResponse other = hot(2);
+        productService.decrementQuantity(product.getId(), 4);
+        productService.decrementQuantity(other.getId(), 2);
+        events.clear();
+
+        engine.flush();
+
+        assertThat(events.stream(ProductStockChangedEvent.class))
+                .extracting(ProductStockChangedEvent::getProductId, ProductStockChangedEvent::getQuantity,
+                        ProductStockChangedEvent::crossesZero)
+                .containsExactlyInAnyOrder(
+                        tuple(product.getId(), 6, false),
+                        tuple(other.getId(), 0, true));
+    }
+
+    @Test
+    void updateQuantity_ShouldRejectOutOfRangeValuesForHotAndColdProducts() throws Exception {
+        ProductResponse product = hot(10);
+        ProductResponse stored = productService.createProduct(new ProductRequest("Cold " + System.nanoTime(), null,
+                new BigDecimal("9.99"), 10, "cold", null, true));
+
+        for (long id : new long[]{product.getId(), stored.getId()}) {
+            mockMvc.perform(patch("/api/products/{id}/quantity", id).param("quantity", "-1"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(patch("/api/products/{id}/quantity", id).param("quantity", "1000000"))
+                    .andExpect(status().isBadRequest());
+        }
+        assertThat(engine.available(product.getId())).isEqualTo(10);
+        assertThat(quantity(stored.getId())).isEqualTo(10);
+    }
+
+    @Test
+    void responses_ShouldCarryStockNotYetFlushed() {
+        ProductResponse product = hot(10);
+        productService.decrementQuantity(product.getId(), 4);
+
+        assertThat(quantity(product.getId())).isEqualTo(10);
+        assertThat(productService.findById(product.getId()).getQuantity()).isEqualTo(6);
+        assertThat(productService.findByName(product.getName()).getQuantity()).isEqualTo(6);
+        assertThat(productService.findBySku(product.getSku()).getQuantity()).isEqualTo(6);
+        assertThat(productService.findByCategory(product.getCategory(), null, 10).getItems())
+                .extracting(ProductResponse::getQuantity).containsExactly(6);
+        assertThat(productService.deactivateProduct(product.getId()).getQuantity()).isEqualTo(6);
+        assertThat(productService.activateProduct(product.getId()).getQuantity()).isEqualTo(6);
+    }
+
+    @Test
+    void getProduct_ShouldLeaveOutLastModifiedForLiveStock() throws Exception {
+        ProductResponse product = hot(10);
+        ProductResponse stored = productService.createProduct(new ProductRequest("Cold " + System.nanoTime(), null,
+                new BigDecimal("9.99"), 10, "cold", null, true));
+
+        String etag = mockMvc.perform(get("/api/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/products/name/{name}", product.getName()))
+                .andExpect(header().doesNotExist("Last-Modified"));
+        mockMvc.perform(get("/api/products/{id}", stored.getId()))
+                .andExpect(header().exists("Last-Modified"));
+
+        // updatedAt stays put while the stock moves, but the ETag follows the stock
+        productService.decrementQuantity(product.getId(), 1);
+        mockMvc.perform(get("/api/products/{id}", product.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Create a product and restart the engine with it as a hot product
+     */
+    private ProductResponse hot(int quantity) {
+        String tag = Long.toString(System.nanoTime(), 36);
+        ProductResponse product = productService.createProduct(new ProductRequest("Hot " + tag, null,
+                new BigDecimal("9.99"), quantity, "hot-" + tag, "HOT-" + tag.toUpperCase(), true));
+        engine.stop();
+        properties.getHotProductIds().add(product.getId());
+        engine.start();
+        assertThat(engine.handles(product.getId())).isTrue();
+        return product;
+    }
+
+    private int quantity(long id) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, id);
+    }
+}
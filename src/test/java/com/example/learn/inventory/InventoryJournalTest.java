@@ -0,0 +1,136 @@
+package com.example.learn.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void drain_ShouldSumDurableDeltasPerProduct() {
+        InventoryJournal journal = new InventoryJournal(dir.resolve("j"), false);
+        journal.start(0);
+        journal.append(1L, -2).join();
+        journal.append(1L, -3).join();
+        journal.append(2L, 4).join();
+        journal.stop();
+
+        InventoryJournal.Snapshot snapshot = journal.drain();
+
+        assertThat(snapshot.sequence()).isEqualTo(3);
+        assertThat(snapshot.deltas()).containsEntry(1L, -5L).containsEntry(2L, 4L);
+    }
+
+    @Test
+    void replay_ShouldSkipEntriesCoveredByCheckpointAndTornTail() throws IOException {
+        Path path = dir.resolve("j");
+        InventoryJournal journal = new InventoryJournal(path, true);
+        journal.start(10);
+        journal.append(1L, -1).join();
+        journal.append(1L, -1).join();
+        journal.append(2L, -5).join();
+        journal.stop();
+        // A crash half way through the next record
+        Files.write(path, new byte[InventoryJournal.RECORD_SIZE / 2], StandardOpenOption.APPEND);
+
+        InventoryJournal.Snapshot replay = new InventoryJournal(path, true).replay(11);
+
+        assertThat(replay.sequence()).isEqualTo(13);
+        assertThat(replay.deltas()).containsOnlyKeys(1L, 2L).containsEntry(1L, -1L).containsEntry(2L, -5L);
+    }
+
+    @Test
+    void checkpointed_ShouldCutFlushedEntriesWhileWritesKeepComing() throws IOException {
+        Path path = dir.resolve("j");
+        InventoryJournal journal = new InventoryJournal(path, true);
+        journal.start(0);
+        journal.append(1L, -1).join();
+        journal.append(1L, -1).join();
+        journal.append(2L, -1).join();
+        InventoryJournal.Snapshot flushed = journal.drain();
+        // Written while the flush was in the database, so not covered by its checkpoint
+        journal.append(1L, -2).join();
+        journal.append(2L, 3).join();
+        journal.checkpointed(flushed.sequence());
+        journal.append(3L, 4).join();
+        journal.stop();
+
+        assertThat(Files.size(path)).isEqualTo(3L * InventoryJournal.RECORD_SIZE);
+        InventoryJournal.Snapshot replay = new InventoryJournal(path, true).replay(flushed.sequence());
+        assertThat(replay.sequence()).isEqualTo(6);
+        assertThat(replay.deltas()).containsOnlyKeys(1L, 2L, 3L)
+                .containsEntry(1L, -2L).containsEntry(2L, 3L).containsEntry(3L, 4L);
+    }
+
+    @Test
+    void tryTake_ShouldNeverOversellUnderContention() throws Exception {
+        StripedStock stock = new StripedStock(8, 1000, 2000);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(pool.submit(() -> {
+                int taken = 0;
+                for (int i = 0; i < 200; i++) {
+                    if (stock.tryTake(3)) {
+                        taken += 3;
+                    }
+                }
+                return taken;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(total).isEqualTo(999);
+        assertThat(stock.available()).isEqualTo(1);
+    }
+
+    @Test
+    void tryGive_ShouldNeverPassTheCeilingUnderContention() throws Exception {
+        StripedStock stock = new StripedStock(8, 1, 1000);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(pool.submit(() -> {
+                int given = 0;
+                for (int i = 0; i < 200; i++) {
+                    if (stock.tryGive(3)) {
+                        given += 3;
+                    }
+                    if (i % 10 == 0 && stock.tryTake(1)) {
+                        given -= 1;
+                    }
+                }
+                return given;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(stock.available()).isEqualTo(1 + total).isLessThanOrEqualTo(1000);
+        assertThat(stock.tryGive(1000 - stock.available() + 1)).isFalse();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.BulkImportResponse;
+import com.example.learn.dto.BulkRowError;
+import com.example.learn.dto.UserResponse;
+import com.example.learn.models.UserRole;
+import com.example.learn.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = {
+        "app.import.batch-size=3",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO"
+})
+class AddressImportServiceTest {
+
+    @Autowired
+    private AddressImportService addressImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    @Test
+    void importAddresses_ShouldReportBadRowsAndKeepLastDefaultPerUser() {
+        long userId = user();
+        jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, is_default, user_id, "
+                + "created_at) VALUES ('Old St', 'Springfield', 'ZZ', '00000', 'Freedonia', true, ?, CURRENT_TIMESTAMP)",
+                userId);
+
+        String body = String.join("\n",
+                row(userId, "1 First St", true),
+                "{not json",
+                row(userId, "2 Second St", false),
+                row(Long.MAX_VALUE, "3 Third St", false),
+                "{\"userId\":" + userId + ",\"street\":\"\"}",
+                row(userId, "4 Fourth St", true));
+
+        BulkImportResponse report = addressImportService.importAddresses(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getReceived()).isEqualTo(6);
+        assertThat(report.getCreated()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(BulkRowError::getRow).containsExactlyInAnyOrder(2L, 4L, 5L);
+        assertThat(jdbcTemplate.queryForList("SELECT street FROM addresses WHERE user_id = ? AND is_default = true",
+                String.class, userId)).containsExactly("4 Fourth St");
+    }
+
+    @Test
+    void importAddresses_ShouldReportOnlyTheRowsThatFailAFailedBatch() {
+        long userId = user();
+        long doomedUserId = user();
+        // The user goes away after the batch resolved it, so the insert hits fk_addresses_user
+        doAnswer(invocation -> {
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", doomedUserId);
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> new UserResponse(id, "Import user", null, null, UserRole.CUSTOMER, null, null))
+                    .toList();
+        }).when(userRepository).findResponsesByIdIn(argThat((Collection<Long> ids) -> ids.contains(doomedUserId)));
+
+        String body = String.join("\n",
+                row(userId, "1 First St", false),
+                row(userId, "2 Second St", false),
+                row(userId, "3 Third St", false),
+                row(doomedUserId, "4 Fourth St", true),
+                row(userId, "5 Fifth St", false),
+                "{not json");
+
+        BulkImportResponse report = addressImportService.importAddresses(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getReceived()).isEqualTo(6);
+        assertThat(report.getCreated()).isEqualTo(4);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(BulkRowError::getRow).containsExactlyInAnyOrder(4L, 6L);
+        assertThat(report.getErrors()).filteredOn(error -> error.getRow() == 4L)
+                .singleElement().satisfies(error -> assertThat(error.getMessage()).startsWith("Insert failed"));
+        assertThat(jdbcTemplate.queryForList("SELECT street FROM addresses WHERE user_id = ? ORDER BY id",
+                String.class, userId)).containsExactly("1 First St", "2 Second St", "3 Third St", "5 Fifth St");
+    }
+
+    private long user() {
+        String email = "import" + System.nanoTime() + "@example.com";
+        jdbcTemplate.update("INSERT INTO users (name, email, role, created_at) VALUES ('Import user', ?, 'CUSTOMER', "
+                + "CURRENT_TIMESTAMP)", email);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+    }
+
+    private static String row(long userId, String street, boolean isDefault) {
+        return "{\"userId\":" + userId + ",\"street\":\"" + street + "\",\"city\":\"Springfield\",\"state\":\"ZZ\","
+                + "\"zipCode\":\"00000\",\"country\":\"Freedonia\",\"addressType\":\"HOME\","
+                + "\"isDefault\":" + isDefault + "}";
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.learn.services;
+
+import com.example.learn.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.hibernate.stat=WARN"
+})
+class AddressServiceDefaultAddressTest {
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long userId;
+    private List<Long> addressIds;
+
+    @BeforeEach
+    void seed() {
+        String email = "default" + System.nanoTime() + "@example.com";
+        jdbcTemplate.update("INSERT INTO users (name, email, role, created_at) VALUES ('Default user', ?, 'CUSTOMER', "
+                + "CURRENT_TIMESTAMP)", email);
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        for (boolean isDefault : new boolean[]{true, false, false}) {
+            jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, is_default, user_id, "
+                    + "created_at) VALUES ('Pine St', 'Ogdenville', 'ZZ', '00000', 'Freedonia', ?, ?, CURRENT_TIMESTAMP)",
+                    isDefault, userId);
+        }
+        addressIds = jdbcTemplate.queryForList("SELECT id FROM addresses WHERE user_id = ? ORDER BY id", Long.class, userId);
+    }
+
+    @Test
+    void setDefaultAddress_ShouldMoveDefaultWithOneUpdate() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(addressService.setDefaultAddress(addressIds.get(2), userId).getIsDefault()).isTrue();
+
+        // The switching UPDATE, then the response projection
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(defaults()).containsExactly(addressIds.get(2));
+    }
+
+    @Test
+    void setDefaultAddress_ShouldLeaveDefaultsAloneForAnotherUsersAddress() {
+        assertThatThrownBy(() -> addressService.setDefaultAddress(addressIds.get(1), userId + 1000))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        assertThat(defaults()).containsExactly(addressIds.get(0));
+    }
+
+    @Test
+    void schema_ShouldRejectSecondDefaultForSameUser() {
+        assertThatThrownBy(() -> jdbcTemplate.update("UPDATE addresses SET is_default = TRUE WHERE id = ?",
+                addressIds.get(1)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private List<Long> defaults() {
+        return jdbcTemplate.queryForList("SELECT id FROM addresses WHERE user_id = ? AND is_default = TRUE",
+                Long.class, userId);
+    }
+}
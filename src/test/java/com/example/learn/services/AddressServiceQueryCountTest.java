@@ -0,0 +1,100 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.AddressRequest;
+import com.example.learn.dto.CursorPage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every address read must run a fixed number of statements however many rows it returns,
+ * i.e. the user behind each address is never loaded one query at a time.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.hibernate.stat=WARN"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AddressServiceQueryCountTest {
+
+    private static final int USERS = 40;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private long ownerId;
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, role, created_at, updated_at) "
+                        + "VALUES (?, ?, 'CUSTOMER', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                IntStream.range(0, USERS)
+                        .mapToObj(i -> new Object[]{"Count user " + i, "count" + i + "@example.com"})
+                        .toList());
+        // One address per user so every row references a different user, plus many for the first one
+        jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, address_type, is_default, "
+                + "user_id, created_at, updated_at) SELECT 'Elm St', 'Shelbyville', 'ZZ', '00000', 'Freedonia', 'HOME', "
+                + "false, id, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM users WHERE email LIKE 'count%'");
+        ownerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE email LIKE 'count%'", Long.class);
+        jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, address_type, is_default, "
+                + "user_id, created_at, updated_at) SELECT 'Oak St', 'Shelbyville', 'ZZ', '00000', 'Freedonia', 'WORK', "
+                + "false, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM users WHERE email LIKE 'count%'", ownerId);
+    }
+
+    @Test
+    void listEndpoints_ShouldRunConstantStatementsRegardlessOfPageSize() {
+        assertFlat(size -> addressService.findAll(null, size));
+        assertFlat(size -> addressService.findByCity("shelbyville", null, size));
+        assertFlat(size -> addressService.findByState("zz", null, size));
+        assertFlat(size -> addressService.findByCountry("FREEDONIA", null, size));
+        assertFlat(size -> addressService.findByUserId(ownerId, null, size));
+        assertFlat(size -> addressService.findByUserIdAndAddressType(ownerId, "WORK", null, size));
+    }
+
+    @Test
+    void updateAddress_ShouldLoadUserWithAddress() {
+        Long addressId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM addresses WHERE user_id = ? AND address_type = 'WORK'", Long.class, ownerId);
+        AddressRequest request = new AddressRequest();
+        request.setStreet("Maple St");
+
+        statistics.clear();
+        assertThat(addressService.updateAddress(addressId, request).getUserName()).isEqualTo("Count user 0");
+
+        // One select with the user joined, then the update
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private void assertFlat(IntFunction<CursorPage<?>> query) {
+        long small = statements(query, 2);
+        long large = statements(query, USERS);
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(2);
+    }
+
+    private long statements(IntFunction<CursorPage<?>> query, int size) {
+        statistics.clear();
+        assertThat(query.apply(size).getItems()).hasSize(size);
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.learn.services;
+
+import com.example.learn.config.BatchLookupProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLoaderTest {
+
+    private final List<Collection<Long>> queries = new CopyOnWriteArrayList<>();
+
+    @Test
+    void load_ShouldMergeConcurrentLookupsIntoOneQuery() throws Exception {
+        BatchLoader<Long> loader = new BatchLoader<>(evenIds(), Function.identity(), properties(Duration.ofSeconds(5), 8));
+
+        List<Long> results = loadConcurrently(loader, 8);
+
+        // A full batch is dispatched at once, without waiting out the window
+        assertThat(queries).hasSize(1);
+        assertThat(queries.get(0)).hasSize(8);
+        assertThat(results).containsExactly(0L, null, 2L, null, 4L, null, 6L, null);
+    }
+
+    @Test
+    void load_ShouldDispatchPartialBatchAfterWindow() {
+        BatchLoader<Long> loader = new BatchLoader<>(evenIds(), Function.identity(), properties(Duration.ofMillis(1), 8));
+
+        assertThat(loader.load(2L)).isEqualTo(2L);
+        assertThat(loader.load(3L)).isNull();
+        assertThat(queries).hasSize(2);
+    }
+
+    @Test
+    void load_ShouldFailEveryCallerOfAFailedBatch() {
+        BatchLoader<Long> loader = new BatchLoader<>(ids -> {
+            throw new IllegalStateException("database down");
+        }, Function.identity(), properties(Duration.ofMillis(1), 8));
+
+        assertThatThrownBy(() -> loader.load(1L)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private Function<Collection<Long>, List<Long>> evenIds() {
+        return ids -> {
+            queries.add(ids);
+            return ids.stream().filter(id -> id % 2 == 0).toList();
+        };
+    }
+
+    private static BatchLookupProperties properties(Duration window, int maxBatchSize) {
+        BatchLookupProperties properties = new BatchLookupProperties();
+        properties.setCoalesceWindow(window);
+        properties.setMaxBatchSize(maxBatchSize);
+        return properties;
+    }
+
+    private static List<Long> loadConcurrently(BatchLoader<Long> loader, int callers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CyclicBarrier start = new CyclicBarrier(callers);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (long id = 0; id < callers; id++) {
+                long key = id;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return loader.load(key);
+                }));
+            }
+            List<Long> results = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.BulkImportResponse;
+import com.example.learn.dto.BulkRowError;
+import com.example.learn.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * A batch size of three puts the duplicate checks on both sides of a batch boundary.
+ */
+@SpringBootTest(properties = {
+        "app.import.batch-size=3",
+        "app.import.max-reported-errors=5",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO"
+})
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private ProductRepository productRepository;
+
+    @Test
+    void importProducts_ShouldCreateValidRowsAndReportEachBadLine() {
+        String tag = Long.toString(System.nanoTime(), 36).toUpperCase();
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity, sku, is_active, created_at, updated_at) "
+                + "VALUES (?, 1.00, 1, ?, true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", "Existing " + tag, "X-" + tag);
+
+        String body = String.join("\n",
+                row("A " + tag, "A-" + tag),
+                "{not json",
+                row("B " + tag, null),
+                "",
+                "{\"name\":\"C " + tag + "\"}",
+                row("D " + tag, null),
+                row("A " + tag, null),
+                row("E " + tag, "X-" + tag),
+                row("F " + tag, null),
+                row("G " + tag, null),
+                row("G " + tag, "G-" + tag));
+
+        BulkImportResponse report = productImportService.importProducts(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getReceived()).isEqualTo(10);
+        assertThat(report.getCreated()).isEqualTo(5);
+        assertThat(report.getFailed()).isEqualTo(5);
+        assertThat(report.isErrorsTruncated()).isFalse();
+        assertThat(report.getErrors()).extracting(BulkRowError::getRow).containsExactly(2L, 5L, 7L, 8L, 11L);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("Malformed JSON");
+        assertThat(report.getErrors().get(1).getMessage()).contains("price", "quantity");
+        assertThat(report.getErrors().get(2).getMessage()).contains("name");
+        assertThat(report.getErrors().get(3).getMessage()).contains("sku");
+        assertThat(report.getErrors().get(4).getMessage()).contains("name");
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM products WHERE category = 'import' AND name LIKE ? "
+                + "ORDER BY name", String.class, "% " + tag))
+                .containsExactly("A " + tag, "B " + tag, "D " + tag, "F " + tag, "G " + tag);
+    }
+
+    @Test
+    void importProducts_ShouldCountErrorsBeyondTheReportingLimit() {
+        String body = IntStream.rangeClosed(1, 7).mapToObj(i -> "{\"name\":\"x\"}").collect(Collectors.joining("\n"));
+
+        BulkImportResponse report = productImportService.importProducts(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getReceived()).isEqualTo(7);
+        assertThat(report.getCreated()).isZero();
+        assertThat(report.getFailed()).isEqualTo(7);
+        assertThat(report.getErrors()).hasSize(5);
+        assertThat(report.isErrorsTruncated()).isTrue();
+    }
+
+    @Test
+    void importProducts_ShouldReportOnlyTheRowsThatFailAFailedBatch() {
+        String tag = Long.toString(System.nanoTime(), 36).toUpperCase();
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity, is_active, created_at, updated_at) "
+                + "VALUES (?, 1.00, 1, true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", "Existing " + tag);
+        // The name is taken after the duplicate check ran, so the insert hits uk_products_name
+        doReturn(Set.of()).when(productRepository)
+                .findExistingNames(argThat((Collection<String> names) -> names.contains("Existing " + tag)));
+
+        String body = String.join("\n",
+                row("A " + tag, null),
+                row("Existing " + tag, null),
+                row("B " + tag, null));
+
+        BulkImportResponse report = productImportService.importProducts(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(BulkRowError::getRow).containsExactly(2L);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("Insert failed");
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM products WHERE category = 'import' AND name LIKE ? "
+                + "ORDER BY name", String.class, "% " + tag)).containsExactly("A " + tag, "B " + tag);
+    }
+
+    private static String row(String name, String sku) {
+        return "{\"name\":\"" + name + "\",\"price\":4.25,\"quantity\":3,\"category\":\"import\""
+                + (sku != null ? ",\"sku\":\"" + sku + "\"" : "") + "}";
+    }
+}
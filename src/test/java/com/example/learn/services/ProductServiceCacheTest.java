@@ -0,0 +1,99 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.ProductRequest;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Writes through the service must evict the product, so the next read sees the committed row.
+ * Each test first proves the product is cached by changing the row behind the cache's back.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO"
+})
+class ProductServiceCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void updateProduct_ShouldEvictIdNameAndSku() {
+        ProductResponse product = cachedProduct();
+        String oldName = product.getName();
+        ProductRequest request = request(oldName + " v2", product.getSku() + "B", 7);
+
+        productService.updateProduct(product.getId(), request);
+
+        assertThat(productService.findById(product.getId()).getName()).isEqualTo(oldName + " v2");
+        assertThat(productService.findBySku(product.getSku() + "B").getId()).isEqualTo(product.getId());
+        assertThatThrownBy(() -> productService.findByName(oldName)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> productService.findBySku(product.getSku())).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void stockChanges_ShouldEvictProduct() {
+        ProductResponse product = cachedProduct();
+
+        productService.decrementQuantity(product.getId(), 2);
+        assertThat(productService.findById(product.getId()).getQuantity()).isEqualTo(40);
+
+        productService.incrementQuantity(product.getId(), 5);
+        assertThat(productService.findById(product.getId()).getQuantity()).isEqualTo(45);
+
+        productService.updateQuantity(product.getId(), 3);
+        assertThat(productService.findByName(product.getName()).getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void deleteProduct_ShouldEvictProduct() {
+        ProductResponse product = cachedProduct();
+
+        productService.deleteProduct(product.getId());
+
+        assertThatThrownBy(() -> productService.findById(product.getId())).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> productService.findByName(product.getName()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void cacheStats_ShouldReportEveryLookupKey() {
+        ProductResponse product = cachedProduct();
+        long hits = productService.cacheStats().get("id").getHitCount();
+
+        productService.findById(product.getId());
+
+        assertThat(productService.cacheStats()).containsKeys("id", "name", "sku", "json");
+        assertThat(productService.cacheStats().get("id").getHitCount()).isEqualTo(hits + 1);
+    }
+
+    /**
+     * Create a product with 7 units, cache it by id, name and SKU, then set the row to 42 units directly
+     */
+    private ProductResponse cachedProduct() {
+        String suffix = Long.toString(System.nanoTime(), 36).toUpperCase();
+        ProductResponse product = productService.createProduct(request("Cached " + suffix, "C-" + suffix, 7));
+        productService.findById(product.getId());
+        productService.findByName(product.getName());
+        productService.findBySku(product.getSku());
+        jdbcTemplate.update("UPDATE products SET quantity = 42 WHERE id = ?", product.getId());
+        assertThat(productService.findById(product.getId()).getQuantity()).isEqualTo(7);
+        return product;
+    }
+
+    private static ProductRequest request(String name, String sku, int quantity) {
+        return new ProductRequest(name, "Cache test", new BigDecimal("9.99"), quantity, "cache", sku, true);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.ProductRequest;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.exceptions.BadRequestException;
+import com.example.learn.exceptions.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional stock UPDATEs must never oversell, and edits saved through the entity must not
+ * write back a quantity that a stock UPDATE has moved since the row was read.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.springframework.web=INFO"
+})
+@AutoConfigureMockMvc
+class ProductServiceStockTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void decrementQuantity_ShouldNotOversellUnderConcurrency() throws Exception {
+        long id = create(50).getId();
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService buyers = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            futures.add(buyers.submit(() -> {
+                try {
+                    productService.decrementQuantity(id, 1);
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException ex) {
+                    refused.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        buyers.shutdown();
+
+        assertThat(sold).hasValue(50);
+        assertThat(refused).hasValue(30);
+        assertThat(quantity(id)).isZero();
+    }
+
+    @Test
+    void stockEndpoints_ShouldTellMissingProductFromShortStock() throws Exception {
+        long id = create(2).getId();
+
+        mockMvc.perform(patch("/api/products/{id}/quantity/decrement", Long.MAX_VALUE).param("amount", "1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/api/products/{id}/quantity/decrement", id).param("amount", "3"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/products/{id}/quantity/increment", Long.MAX_VALUE).param("amount", "1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/api/products/{id}/quantity/decrement", id).param("amount", "2"))
+                .andExpect(status().isOk());
+        assertThat(quantity(id)).isZero();
+    }
+
+    @Test
+    void incrementQuantity_ShouldStopAtTheCeiling() {
+        long id = create(999990).getId();
+
+        productService.incrementQuantity(id, 9);
+
+        assertThatThrownBy(() -> productService.incrementQuantity(id, 1)).isInstanceOf(BadRequestException.class);
+        assertThat(quantity(id)).isEqualTo(999999);
+    }
+
+    @Test
+    void stockChanges_ShouldRejectAmountsBelowOne() {
+        long id = create(5).getId();
+
+        for (int amount : new int[]{0, -1}) {
+            assertThatThrownBy(() -> productService.decrementQuantity(id, amount))
+                    .isInstanceOf(BadRequestException.class);
+            assertThatThrownBy(() -> productService.incrementQuantity(id, amount))
+                    .isInstanceOf(BadRequestException.class);
+        }
+        assertThat(quantity(id)).isEqualTo(5);
+    }
+
+    @Test
+    void deactivateProduct_ShouldKeepDecrementCommittedAfterTheRead() {
+        long id = create(10).getId();
+
+        // The outer transaction holds the save until after the decrement has committed
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.deactivateProduct(id);
+            CompletableFuture.runAsync(() -> productService.decrementQuantity(id, 3)).join();
+        });
+
+        assertThat(quantity(id)).isEqualTo(7);
+        assertThat(jdbcTemplate.queryForObject("SELECT is_active FROM products WHERE id = ?", Boolean.class, id))
+                .isFalse();
+    }
+
+    @Test
+    void updateProduct_ShouldKeepDecrementCommittedAfterTheRead() {
+        ProductResponse product = create(10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.updateProduct(product.getId(), new ProductRequest(product.getName(), "Edited",
+                    product.getPrice(), 10, product.getCategory(), null, true));
+            CompletableFuture.runAsync(() -> productService.decrementQuantity(product.getId(), 4)).join();
+        });
+
+        assertThat(quantity(product.getId())).isEqualTo(6);
+        assertThat(productService.findById(product.getId()).getDescription()).isEqualTo("Edited");
+    }
+
+    private ProductResponse create(int quantity) {
+        return productService.createProduct(new ProductRequest("Stock " + System.nanoTime(), null,
+                new BigDecimal("12.00"), quantity, "stock", null, true));
+    }
+
+    private int quantity(long id) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, id);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.CursorPage;
+import com.example.learn.dto.ProductRequest;
+import com.example.learn.dto.ProductResponse;
+import com.example.learn.dto.UserResponse;
+import com.example.learn.exceptions.BadRequestException;
+import com.example.learn.models.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO"
+})
+class SparseFieldsetTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CursorPaginator cursorPaginator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findAllFields_ShouldReturnOnlySelectedFieldsInResponseOrder() {
+        String name = "Sparse product " + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO products (name, description, price, quantity, is_active, created_at) "
+                + "VALUES (?, 'Long description', 12.50, 3, true, CURRENT_TIMESTAMP)", name);
+        long id = jdbcTemplate.queryForObject("SELECT id FROM products WHERE name = ?", Long.class, name);
+
+        CursorPage<Map<String, Object>> page =
+                productService.findAllFields(" price,name ", cursorPaginator.encode(id - 1), 1);
+
+        Map<String, Object> row = page.getItems().get(0);
+        assertThat(row).containsOnlyKeys("id", "name", "price");
+        assertThat(row.keySet()).containsExactly("id", "name", "price");
+        assertThat(row).containsEntry("id", id).containsEntry("name", name);
+        assertThat((BigDecimal) row.get("price")).isEqualByComparingTo("12.50");
+    }
+
+    @Test
+    void findAllFields_ShouldReadUserNameThroughTheAddressOwner() {
+        String email = "sparse" + System.nanoTime() + "@example.com";
+        jdbcTemplate.update("INSERT INTO users (name, email, role, created_at) VALUES ('Sparse owner', ?, 'CUSTOMER', "
+                + "CURRENT_TIMESTAMP)", email);
+        long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, is_default, user_id, "
+                + "created_at) VALUES ('Elm St', 'Ogdenville', 'ZZ', '00000', 'Freedonia', false, ?, "
+                + "CURRENT_TIMESTAMP)", userId);
+        long id = jdbcTemplate.queryForObject("SELECT id FROM addresses WHERE user_id = ?", Long.class, userId);
+
+        Map<String, Object> row = addressService.findAllFields("city,userName", cursorPaginator.encode(id - 1), 1)
+                .getItems().get(0);
+
+        assertThat(row).containsExactly(Map.entry("id", id), Map.entry("userName", "Sparse owner"),
+                Map.entry("city", "Ogdenville"));
+    }
+
+    @Test
+    void filteredProductListings_ShouldSelectTheSameRowsAsTheFullListings() {
+        String tag = Long.toString(System.nanoTime(), 36);
+        BigDecimal price = new BigDecimal("8765.43");
+        ProductResponse inStock = productService.createProduct(new ProductRequest("Sparse stocked " + tag, null,
+                price, 4, "sparse", null, true));
+        ProductResponse outOfStock = productService.createProduct(new ProductRequest("Sparse empty " + tag, null,
+                price, 0, "sparse", null, true));
+
+        assertSameRows(productService.findInStockProductFields("name,quantity", after(inStock.getId()), 1).getItems(),
+                productService.findInStockProducts(after(inStock.getId()), 1).getItems(), ProductResponse::getId);
+        assertSameRows(productService.findOutOfStockProductFields("quantity", after(outOfStock.getId()), 1).getItems(),
+                productService.findOutOfStockProducts(after(outOfStock.getId()), 1).getItems(), ProductResponse::getId);
+        assertSameRows(productService.findFieldsByPriceRange("name", price, price, "price_desc", null, 50).getItems(),
+                productService.findByPriceRange(price, price, "price_desc", null, 50).getItems(),
+                ProductResponse::getId);
+        assertSameRows(productService.searchFieldsByName("name", tag, 5),
+                productService.searchByName(tag, 5), ProductResponse::getId);
+
+        assertThat(productService.findInStockProductFields("name,quantity", after(inStock.getId()), 1).getItems())
+                .containsExactly(Map.of("id", inStock.getId(), "name", inStock.getName(), "quantity", 4));
+        assertThat(productService.searchFieldsByName("name", tag, 5)).extracting(row -> row.get("id"))
+                .contains(inStock.getId(), outOfStock.getId());
+    }
+
+    @Test
+    void filteredUserAndAddressListings_ShouldSelectTheSameRowsAsTheFullListings() {
+        String tag = Long.toString(System.nanoTime(), 36);
+        String email = "sparse" + tag + "@example.com";
+        jdbcTemplate.update("INSERT INTO users (name, email, role, created_at) VALUES (?, ?, 'ADMIN', "
+                + "CURRENT_TIMESTAMP)", "Sparse " + tag, email);
+        long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        for (String type : new String[]{"HOME", "WORK"}) {
+            jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, address_type, "
+                    + "is_default, user_id, created_at) VALUES ('Elm St', ?, ?, '00000', ?, ?, false, ?, "
+                    + "CURRENT_TIMESTAMP)", "City " + tag, "State " + tag, "Country " + tag, type, userId);
+        }
+
+        assertSameRows(userService.findFieldsByRole("email", UserRole.ADMIN, after(userId), 1).getItems(),
+                userService.findByRole(UserRole.ADMIN, after(userId), 1).getItems(), UserResponse::getId);
+        assertSameRows(userService.searchFieldsByName("email", tag, null, null).getItems(),
+                userService.searchByName(tag, null, null).getItems(), UserResponse::getId);
+        assertThat(userService.searchFieldsByName("email", tag, null, null).getItems())
+                .containsExactly(Map.of("id", userId, "email", email));
+
+        assertSameRows(addressService.findFieldsByUserId("street", userId, null, null).getItems(),
+                addressService.findByUserId(userId, null, null).getItems(), AddressResponse::getId);
+        assertSameRows(addressService.findFieldsByUserIdAndAddressType("addressType", userId, "WORK", null, null)
+                .getItems(), addressService.findByUserIdAndAddressType(userId, "WORK", null, null).getItems(),
+                AddressResponse::getId);
+        assertSameRows(addressService.findFieldsByCity("city", "city " + tag, null, null).getItems(),
+                addressService.findByCity("city " + tag, null, null).getItems(), AddressResponse::getId);
+        assertSameRows(addressService.findFieldsByState("state", "STATE " + tag, null, null).getItems(),
+                addressService.findByState("STATE " + tag, null, null).getItems(), AddressResponse::getId);
+        assertSameRows(addressService.findFieldsByCountry("country", "Country " + tag, null, null).getItems(),
+                addressService.findByCountry("Country " + tag, null, null).getItems(), AddressResponse::getId);
+        assertThat(addressService.findFieldsByCity("city", "city " + tag, null, null).getItems()).hasSize(2)
+                .allSatisfy(row -> assertThat(row).containsOnlyKeys("id", "city"));
+    }
+
+    @Test
+    void findAllFields_WithUnknownField_ShouldThrowBadRequest() {
+        assertThatThrownBy(() -> productService.findAllFields("name,secret", null, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("secret");
+        assertThatThrownBy(() -> productService.findAllFields(" ", null, null))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private String after(long id) {
+        return cursorPaginator.encode(id - 1);
+    }
+
+    private static <T> void assertSameRows(List<Map<String, Object>> sparse, List<T> full,
+                                           Function<T, Long> id) {
+        assertThat(sparse).isNotEmpty();
+        assertThat(sparse).extracting(Fieldsets::id).containsExactlyElementsOf(full.stream().map(id).toList());
+    }
+}
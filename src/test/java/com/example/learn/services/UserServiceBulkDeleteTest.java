@@ -0,0 +1,101 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.BulkDeleteResponse;
+import com.example.learn.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * User and address purges must run a fixed number of statements however many addresses are involved.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.hibernate.stat=WARN"
+})
+class UserServiceBulkDeleteTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void deleteUser_ShouldDeleteUserAndAddressesInTwoStatements() {
+        long userId = seedUser(50);
+        Statistics statistics = statistics();
+
+        userService.deleteUser(userId);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(userService.existsById(userId)).isFalse();
+        assertThat(addressCount(userId)).isZero();
+    }
+
+    @Test
+    void deleteUser_ShouldFailForUnknownUser() {
+        assertThatThrownBy(() -> userService.deleteUser(Long.MAX_VALUE))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void deleteUsers_ShouldSkipUnknownIdsAndCountDeletedRows() {
+        List<Long> ids = new ArrayList<>(List.of(seedUser(3), seedUser(5), Long.MAX_VALUE));
+        Statistics statistics = statistics();
+
+        BulkDeleteResponse result = userService.deleteUsers(ids);
+
+        assertThat(result).isEqualTo(new BulkDeleteResponse(2, 8));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void deleteAllAddressesByUserIds_ShouldKeepUsers() {
+        long first = seedUser(2);
+        long second = seedUser(4);
+
+        assertThat(addressService.deleteAllAddressesByUserIds(List.of(first, second)).getAddressesDeleted()).isEqualTo(6);
+        assertThat(userService.existsById(first)).isTrue();
+        assertThat(addressCount(first) + addressCount(second)).isZero();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private long seedUser(int addresses) {
+        String email = "purge" + System.nanoTime() + "@example.com";
+        jdbcTemplate.update("INSERT INTO users (name, email, role, created_at) VALUES ('Purge user', ?, 'CUSTOMER', "
+                + "CURRENT_TIMESTAMP)", email);
+        long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, is_default, user_id, "
+                + "created_at) SELECT 'Birch St', 'Capital City', 'ZZ', '00000', 'Freedonia', false, ?, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, ?)", userId, addresses);
+        return userId;
+    }
+
+    private long addressCount(long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM addresses WHERE user_id = ?", Long.class, userId);
+    }
+}
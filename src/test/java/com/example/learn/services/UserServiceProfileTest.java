@@ -0,0 +1,53 @@
+package com.example.learn.services;
+
+import com.example.learn.dto.AddressResponse;
+import com.example.learn.dto.UserProfileResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.learn=INFO",
+        "logging.level.org.hibernate.stat=WARN"
+})
+class UserServiceProfileTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void findProfile_ShouldLoadUserAndAddressesInOneStatement() {
+        String email = "profile" + System.nanoTime() + "@example.com";
+        jdbcTemplate.update("INSERT INTO users (name, email, role, created_at) VALUES ('Profile user', ?, 'CUSTOMER', "
+                + "CURRENT_TIMESTAMP)", email);
+        long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        for (boolean isDefault : new boolean[]{false, true, false}) {
+            jdbcTemplate.update("INSERT INTO addresses (street, city, state, zip_code, country, is_default, user_id, "
+                    + "created_at) VALUES ('Ash St', 'North Haverbrook', 'ZZ', '00000', 'Freedonia', ?, ?, "
+                    + "CURRENT_TIMESTAMP)", isDefault, userId);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        UserProfileResponse profile = userService.findProfile(userId);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(profile.getUser().getEmail()).isEqualTo(email);
+        assertThat(profile.getAddresses()).extracting(AddressResponse::getId).isSorted().hasSize(3);
+        assertThat(profile.getDefaultAddress()).isEqualTo(profile.getAddresses().get(1));
+    }
+}